@@ -0,0 +1,104 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import org.opensourcephysics.display2d.*;
+
+/**
+ * Measures the time to recolor a ComplexGridPlot of a wave packet, one frame at a time.
+ *
+ * The reference path is the per-pixel path the plot used before: a Color created with Math.atan2 for
+ * every pixel and copied into the image with setRGB. The packed path is ComplexGridPlot.update, which
+ * looks the phase up in a table and writes packed ints into the image raster.
+ * Arguments: grid sizes, default 512 2048.
+ */
+public class ComplexColorBenchmark {
+  static final int FRAMES = 10;
+  static final int[] REDS = new int[256], GREENS = new int[256], BLUES = new int[256];
+  static {  // the palette of ComplexColorMapper
+    double pi = Math.PI;
+    for(int i=0; i<256; i++){
+      double val = Math.abs(Math.sin(pi*i/255));
+      BLUES[i] = (int) (255*val*val);
+      val = Math.abs(Math.sin(pi*i/255+pi/3));
+      GREENS[i] = (int) (255*val*val*Math.sqrt(val));
+      val = Math.abs(Math.sin(pi*i/255+2*pi/3));
+      REDS[i] = (int) (255*val*val);
+    }
+  }
+
+  public static void main(String[] args) {
+    int[] sizes = {512, 2048};
+    if(args.length>0){
+      sizes = new int[args.length];
+      for(int i=0; i<args.length; i++){
+        sizes[i] = Integer.parseInt(args[i]);
+      }
+    }
+    for(int k=0; k<sizes.length; k++){
+      run(sizes[k]);
+    }
+  }
+
+  static void run(int n) {
+    double[] psi = new double[2*n*n];
+    for(int iy=0; iy<n; iy++){  // Gaussian packet with momentum (20,10) on [-1,1]x[-1,1]
+      for(int ix=0; ix<n; ix++){
+        double x = -1+2.0*ix/(n-1), y = -1+2.0*iy/(n-1);
+        double amp = Math.exp(-(x*x+y*y)*8), phase = 20*x+10*y;
+        psi[2*(iy*n+ix)] = amp*Math.cos(phase);
+        psi[2*(iy*n+ix)+1] = amp*Math.sin(phase);
+      }
+    }
+    ComplexFlatData data = new ComplexFlatData(psi, n, n);
+    data.setScale(-1, 1, -1, 1);
+    ComplexGridPlot plot = new ComplexGridPlot(data);
+    double ceil = data.getZRange(0)[1];
+    ComplexColorMapper mapper = new ComplexColorMapper(ceil);
+    BufferedImage image = new BufferedImage(n, n, BufferedImage.TYPE_INT_ARGB);
+    int[] pixels = new int[n*n];
+    double[] samples = new double[3];
+    double reference = 0, packed = 0;
+    for(int pass=0; pass<2; pass++){  // the first pass warms up the JIT
+      long start = System.nanoTime();
+      for(int frame=0; frame<FRAMES; frame++){
+        for(int i=0, count=0; count<n*n; i+=2, count++){
+          samples[1] = psi[i];
+          samples[2] = psi[i+1];
+          samples[0] = Math.sqrt(samples[1]*samples[1]+samples[2]*samples[2]);
+          pixels[count] = referenceColor(samples, ceil).getRGB();
+        }
+        image.setRGB(0, 0, n, n, pixels, 0, n);
+      }
+      reference = (System.nanoTime()-start)/1.0e6/FRAMES;
+      start = System.nanoTime();
+      for(int frame=0; frame<FRAMES; frame++){
+        plot.update();
+      }
+      packed = (System.nanoTime()-start)/1.0e6/FRAMES;
+    }
+    int differ = 0;
+    for(int i=0, count=0; count<n*n; i+=2, count++){
+      samples[1] = psi[i];
+      samples[2] = psi[i+1];
+      samples[0] = Math.sqrt(samples[1]*samples[1]+samples[2]*samples[2]);
+      if(mapper.samplesToRGB(samples)!=referenceColor(samples, ceil).getRGB()){
+        differ++;
+      }
+    }
+    System.out.println(n+"x"+n+": Color per pixel "+reference+" ms/frame, packed "+packed+" ms/frame, "
+                       +differ+" of "+(n*n)+" pixels differ");
+  }
+
+  // the color of ComplexColorMapper.samplesToColor computed with Math.atan2 and a new Color
+  static Color referenceColor(double[] samples, double ceil) {
+    double zval = samples[0];
+    if(zval<=0){
+      return Color.black;
+    } else if(zval>ceil+1.0e-9){
+      return Color.lightGray;
+    }
+    float b = (float) (Math.min(zval, ceil)/ceil);
+    float h = (float) ((Math.PI+Math.atan2(samples[2], samples[1]))/(2*Math.PI));
+    int index = (int) (255*h);
+    return new Color((int) (b*REDS[index]), (int) (b*GREENS[index]), (int) (b*BLUES[index]));
+  }
+}
@@ -0,0 +1,64 @@
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Checks that ODEInterpolationEventSolver finds an event at the right time with every solver class.
+ *
+ * A harmonic oscillator starts at x=1 at rest and is stopped by the event x=0, which happens at t=pi/2.
+ * The fixed step of 0.5 is made of several adaptive steps when the solver is RK45MultiStep.
+ */
+public class EventCheck {
+  static final double TOLERANCE = 1.0e-6;
+  static int failures = 0;
+
+  public static void main(String[] args) {
+    Class<?>[] solvers = {DormandPrince45.class, CashKarp45.class, RK45.class, RK45MultiStep.class, RK4.class};
+    for(int i=0; i<solvers.length; i++){
+      check(solvers[i]);
+    }
+    System.out.println((failures==0) ? "all checks passed" : failures+" checks failed");
+  }
+
+  static void check(Class<?> solverClass) {
+    final double[] state = {1, 0, 0};  // x, v, t
+    ODE ode = new ODE() {
+      public double[] getState() {
+        return state;
+      }
+
+      public void getRate(double[] s, double[] rate) {
+        rate[0] = s[1];
+        rate[1] = -s[0];
+        rate[2] = 1;
+      }
+
+    };
+    ODEInterpolationEventSolver solver = new ODEInterpolationEventSolver(ode, solverClass);
+    solver.initialize(0.5);
+    solver.setTolerance(1.0e-10);
+    final double[] event = {Double.NaN, Double.NaN};
+    solver.addEvent(new StateEvent() {
+      public double getTolerance() {
+        return 1.0e-9;
+      }
+
+      public double evaluate(double[] s) {
+        return s[0];
+      }
+
+      public boolean action() {
+        event[0] = state[2];
+        event[1] = state[0];
+        return true;
+      }
+
+    });
+    while(state[2]<3 && Double.isNaN(event[0])){
+      solver.step();
+    }
+    boolean ok = Math.abs(event[0]-Math.PI/2)<=TOLERANCE && Math.abs(event[1])<=TOLERANCE;
+    if(!ok){
+      failures++;
+    }
+    System.out.println(solverClass.getSimpleName()+": event at t="+event[0]+" x="+event[1]+(ok ? " ok" : " FAILED"));
+  }
+}
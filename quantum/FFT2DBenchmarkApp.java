@@ -0,0 +1,52 @@
+import org.opensourcephysics.controls.*;
+import org.opensourcephysics.numerics.*;
+
+public class FFT2DBenchmarkApp extends AbstractCalculation {
+
+  public void calculate() {
+    int nmin = control.getInt("N min");
+    int nmax = control.getInt("N max");
+    int reps = control.getInt("repetitions");
+    int block = control.getInt("column block");
+    control.println("N\tstrided (ms)\tblocked (ms)\tspeedup");
+    for(int n = nmin; n<=nmax; n *= 2){
+      double[] data = new double[2*n*n];
+      for(int i=0; i<data.length; i++){
+        data[i] = Math.random();
+      }
+      FFT2D fft = new FFT2D(n, n);
+      double strided = time(fft, data, reps);
+      fft.setColumnBlockSize(block);
+      double blocked = time(fft, data, reps);
+      control.println(n+"\t"+decimalFormat.format(strided)+"\t"+decimalFormat.format(blocked)
+                      +"\t"+decimalFormat.format(strided/blocked));
+    }
+  }
+
+  // average time in ms of a forward and a backward transform
+  double time(FFT2D fft, double[] data, int reps){
+    fft.transform(data);     // warm up
+    fft.backtransform(data);
+    long start = System.nanoTime();
+    for(int i=0; i<reps; i++){
+      fft.transform(data);
+      fft.backtransform(data);
+      // keep the values bounded
+      for(int j=0; j<data.length; j++){
+        data[j] /= data.length/2;
+      }
+    }
+    return (System.nanoTime()-start)/1.0e6/reps;
+  }
+
+  public void reset() {
+    control.setValue("N min", 256);
+    control.setValue("N max", 2048);
+    control.setValue("repetitions", 5);
+    control.setValue("column block", 16);
+  }
+
+  public static void main(String[] args){
+    CalculationControl.createApp(new FFT2DBenchmarkApp());
+  }
+}
@@ -0,0 +1,90 @@
+import java.lang.management.ManagementFactory;
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Checks that the serial FFT, FFT2D and FFT3D transforms allocate nothing once they are warmed up.
+ *
+ * Each transform is run forward and backward until the JIT has compiled it, then the bytes that the
+ * thread allocates during further transforms are measured. Lengths with factors 2, 3, 4, 5 and a
+ * general prime factor are included.
+ */
+public class FFTAllocationCheck {
+  static final int WARMUP = 20000, COUNT = 1000;
+  static int failures = 0;
+
+  public static void main(String[] args) {
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if(!bean.isThreadAllocatedMemorySupported()) {
+      System.out.println("thread allocation counters are not supported; nothing checked");
+      return;
+    }
+    bean.setThreadAllocatedMemoryEnabled(true);
+    int[] lengths = {64, 60, 7*11, 1000};
+    for(int i = 0; i<lengths.length; i++) {
+      final FFT fft = new FFT(lengths[i]);
+      final double[] data = random(2*lengths[i]);
+      check(bean, "FFT "+lengths[i], new Runnable() {
+        public void run() {
+          fft.transform(data);
+          fft.backtransform(data);
+        }
+
+      });
+    }
+    final FFT2D fft2 = new FFT2D(64, 60);
+    final double[] data2 = random(2*64*60);
+    check(bean, "FFT2D 64x60", new Runnable() {
+      public void run() {
+        fft2.transform(data2);
+        fft2.backtransform(data2);
+      }
+
+    });
+    final FFT2D tiled = new FFT2D(64, 60);
+    tiled.setColumnBlockSize(16);
+    check(bean, "FFT2D 64x60 tiled", new Runnable() {
+      public void run() {
+        tiled.transform(data2);
+        tiled.backtransform(data2);
+      }
+
+    });
+    final FFT3D fft3 = new FFT3D(16, 12, 10);
+    final double[] data3 = random(2*16*12*10);
+    check(bean, "FFT3D 16x12x10", new Runnable() {
+      public void run() {
+        fft3.transform(data3);
+        fft3.backtransform(data3);
+      }
+
+    });
+    System.out.println((failures==0) ? "all checks passed" : failures+" checks failed");
+  }
+
+  static double[] random(int n) {
+    java.util.Random random = new java.util.Random(1);
+    double[] data = new double[n];
+    for(int i = 0; i<n; i++) {
+      data[i] = random.nextDouble()-0.5;
+    }
+    return data;
+  }
+
+  static void check(com.sun.management.ThreadMXBean bean, String name, Runnable transform) {
+    for(int i = 0; i<WARMUP; i++) {
+      transform.run();
+    }
+    long id = Thread.currentThread().getId();
+    long before = bean.getThreadAllocatedBytes(id);
+    for(int i = 0; i<COUNT; i++) {
+      transform.run();
+    }
+    long bytes = bean.getThreadAllocatedBytes(id)-before;
+    // the counter itself may allocate a few bytes, far less than one array per transform
+    boolean ok = bytes<COUNT;
+    if(!ok) {
+      failures++;
+    }
+    System.out.println(name+": "+((double) bytes/COUNT)+" bytes per transform pair"+(ok ? " ok" : " FAILED"));
+  }
+}
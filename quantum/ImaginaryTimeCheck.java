@@ -0,0 +1,58 @@
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Checks the eigenstates found by ImaginaryTimeSolver against the 2D and 3D harmonic oscillators.
+ *
+ * The potential r^2/2 has the energies 1, 2, 2, 3, ... in 2D and 3/2, 5/2, 5/2, 5/2 in 3D. The imaginary
+ * time step is small enough for the splitting error to stay below the tolerance of the check.
+ * Arguments: grid size, default 32.
+ */
+public class ImaginaryTimeCheck {
+  static final double TOLERANCE = 1.0e-6;
+  static final double DTAU = 0.005;
+  static int failures = 0;
+
+  public static void main(String[] args) {
+    int n = (args.length>0) ? Integer.parseInt(args[0]) : 32;
+    Function f = new Function() {
+      public double evaluate(double r2) {
+        return Math.exp(-r2/2);
+      }
+
+    };
+    Potential oscillator = new Potential() {
+      public double evaluate(double x, double y, double t) {
+        return (x*x+y*y)/2;
+      }
+
+      public boolean isTimeDependent() {
+        return false;
+      }
+
+    };
+    double L = 8;
+    SplitOrder so = new SplitOrder(f, 0, 0, -L, L, -L, L, n, n, 0, 0, 0.001, SplittingScheme.STRANG, oscillator);
+    check("2D", new ImaginaryTimeSolver(so, DTAU), new double[] {1, 2, 2, 3});
+    SplitOrder3D so3 = new SplitOrder3D(f, 0, 0, 0, -L, L, -L, L, -L, L, n, n, n, 0, 0, 0, 0.001) {
+      public double getV(double x, double y, double z) {
+        return (x*x+y*y+z*z)/2;
+      }
+
+    };
+    check("3D", new ImaginaryTimeSolver(so3, DTAU), new double[] {1.5, 2.5, 2.5, 2.5});
+    System.out.println((failures==0) ? "all checks passed" : failures+" checks failed");
+  }
+
+  static void check(String name, ImaginaryTimeSolver solver, double[] expected) {
+    solver.setConvergence(1.0e-9, 100000, 10);
+    solver.solve(expected.length);
+    for(int i=0; i<expected.length; i++){
+      double e = solver.getEnergy(i);
+      boolean ok = Math.abs(e-expected[i])<=TOLERANCE;
+      if(!ok){
+        failures++;
+      }
+      System.out.println(name+" state "+i+": energy "+e+" expected "+expected[i]+(ok ? " ok" : " FAILED"));
+    }
+  }
+}
@@ -0,0 +1,271 @@
+import java.util.ArrayList;
+import java.util.Random;
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Finds the lowest eigenstates of the potential of a SplitOrder or SplitOrder3D grid by
+ * split-operator propagation in imaginary time.
+ *
+ * With t = -i tau the phase operators become real decays, exp(-V dtau/2) exp(-p^2 dtau/2) exp(-V dtau/2),
+ * so every component of Psi decays as exp(-E dtau) and the lowest state survives renormalization.
+ * Excited states are found one after the other by projecting out (Gram-Schmidt) the states already
+ * found after every step. A state is accepted when its energy, estimated from the norm lost in one
+ * step, changes by less than the tolerance between checks. The states are normalized so that
+ * sum |Psi|^2 = 1 over the grid.
+ */
+public class ImaginaryTimeSolver {
+  double[] decayV,   // exp(-V dtau/2)                       [ Natural ]
+           decayT,   // exp(-p^2 dtau/2)/A                   [ Wrapped ]
+           kinetic,  // p^2/2                                [ Wrapped ]
+           U;        // sampled potential
+  double[] work;
+  FFT2D fft2;
+  FFT3D fft3;
+  double dtau, A;
+  double tolerance = 1.0e-8;
+  int maxSteps = 100000, checkInterval = 10;
+  ArrayList<double[]> states = new ArrayList<double[]>();
+  ArrayList<Double> energies = new ArrayList<Double>();
+  ArrayList<Integer> stepCounts = new ArrayList<Integer>();
+
+  /**
+   * Creates a solver for the grid and the current potential of a 2D wave function.
+   */
+  public ImaginaryTimeSolver(SplitOrder so, double dtau){
+    fft2 = new FFT2D(so.Nx, so.Ny);
+    int n = so.Nx*so.Ny;
+    U = so.U.clone();
+    kinetic = new double[n];
+    double[] p_x = wavenumbers(so.Nx, (so.xmax-so.xmin)/(so.Nx-1));
+    double[] p_y = wavenumbers(so.Ny, (so.ymax-so.ymin)/(so.Ny-1));
+    for(int iy=0; iy<so.Ny; iy++){
+      for(int ix=0; ix<so.Nx; ix++){
+        kinetic[iy*so.Nx+ix] = (p_x[ix]*p_x[ix]+p_y[iy]*p_y[iy])/2.0;
+      }
+    }
+    setDtau(dtau);
+  }
+
+  /**
+   * Creates a solver for the grid and the potential of a 3D wave function.
+   */
+  public ImaginaryTimeSolver(SplitOrder3D so, double dtau){
+    fft3 = new FFT3D(so.Nx, so.Ny, so.Nz);
+    fft3.setParallel(true);
+    int n = so.Nx*so.Ny*so.Nz;
+    U = new double[n];
+    kinetic = new double[n];
+    double dx = (so.xmax-so.xmin)/(so.Nx-1), dy = (so.ymax-so.ymin)/(so.Ny-1), dz = (so.zmax-so.zmin)/(so.Nz-1);
+    double[] p_x = wavenumbers(so.Nx, dx), p_y = wavenumbers(so.Ny, dy), p_z = wavenumbers(so.Nz, dz);
+    for(int ix=0, i=0; ix<so.Nx; ix++){
+      for(int iy=0; iy<so.Ny; iy++){
+        for(int iz=0; iz<so.Nz; iz++, i++){
+          U[i] = so.getV(so.xmin+ix*dx, so.ymin+iy*dy, so.zmin+iz*dz);
+          kinetic[i] = (p_x[ix]*p_x[ix]+p_y[iy]*p_y[iy]+p_z[iz]*p_z[iz])/2.0;
+        }
+      }
+    }
+    setDtau(dtau);
+  }
+
+  /**
+   * Gets the angular wave numbers in wrap-around order of n samples with spacing dx. The FFT treats the
+   * samples as one period of length n*dx, so the wave numbers are multiples of 2 pi/(n dx); the
+   * getWrappedOmega methods of the FFT classes assume a period of xmax-xmin = (n-1)*dx instead.
+   */
+  static double[] wavenumbers(int n, double dx){
+    double[] k = new double[n];
+    for(int i=0; i<n; i++){
+      k[i] = 2*Math.PI*((i<(n+1)/2) ? i : i-n)/(n*dx);
+    }
+    return k;
+  }
+
+  /**
+   * Sets the imaginary time step and rebuilds the decay operators.
+   */
+  public void setDtau(double dtau){
+    if(!(dtau>0)){
+      throw new IllegalArgumentException("The imaginary time step must be positive.");
+    }
+    this.dtau = dtau;
+    int n = U.length;
+    A = n;
+    decayV = new double[n];
+    decayT = new double[n];
+    for(int i=0; i<n; i++){
+      decayV[i] = Math.exp(-U[i]*dtau/2.0);
+      decayT[i] = Math.exp(-kinetic[i]*dtau)/A;  // fold the inverse FFT normalization into T
+    }
+  }
+
+  public double getDtau(){
+    return dtau;
+  }
+
+  /**
+   * Sets the convergence tolerance of the energy, the maximum number of steps per state and the number
+   * of steps between convergence checks.
+   */
+  public void setConvergence(double tolerance, int maxSteps, int checkInterval){
+    this.tolerance = tolerance;
+    this.maxSteps = maxSteps;
+    this.checkInterval = Math.max(1, checkInterval);
+  }
+
+  /**
+   * Finds eigenstates until count states are known, starting each one from a seeded random guess.
+   *
+   * @return the number of states that converged within the maximum number of steps
+   */
+  public int solve(int count){
+    int converged = 0;
+    while(states.size()<count){
+      double[] psi = new double[2*U.length];
+      Random random = new Random(states.size()+1);
+      for(int i=0; i<U.length; i++){
+        psi[2*i] = random.nextDouble()-0.5;
+      }
+      if(findState(psi)){
+        converged++;
+      }
+    }
+    return converged;
+  }
+
+  /**
+   * Propagates a trial state, orthogonal to the states already found, until its energy converges and
+   * adds it to the list of states. The array is used as the state.
+   *
+   * @return true if the energy converged within the maximum number of steps
+   */
+  public boolean findState(double[] psi){
+    if(psi.length!=2*U.length){
+      throw new IllegalArgumentException("The trial state does not match the grid.");
+    }
+    orthogonalize(psi);
+    normalize(psi);
+    double previous = Double.NaN, energy = Double.NaN;
+    int steps = 0;
+    boolean done = false;
+    while(!done && steps<maxSteps){
+      step(psi);
+      orthogonalize(psi);
+      energy = -Math.log(normalize(psi))/dtau;
+      steps++;
+      if(steps%checkInterval==0){
+        done = Math.abs(energy-previous)<tolerance*Math.max(1, Math.abs(energy));
+        previous = energy;
+      }
+    }
+    states.add(psi);
+    energies.add(Double.valueOf(getEnergy(psi)));
+    stepCounts.add(Integer.valueOf(steps));
+    return done;
+  }
+
+  // psi = exp(-V dtau/2) exp(-T dtau) exp(-V dtau/2) psi
+  void step(double[] psi){
+    multiply(decayV, psi);
+    transform(psi);
+    multiply(decayT, psi);
+    backtransform(psi);
+    multiply(decayV, psi);
+  }
+
+  static void multiply(double[] op, double[] psi){
+    for(int i=0, n=op.length; i<n; i++){
+      psi[2*i]   *= op[i];
+      psi[2*i+1] *= op[i];
+    }
+  }
+
+  void transform(double[] psi){
+    if(fft2!=null){
+      fft2.transform(psi);
+    } else {
+      fft3.transform(psi);
+    }
+  }
+
+  void backtransform(double[] psi){
+    if(fft2!=null){
+      fft2.backtransform(psi);
+    } else {
+      fft3.backtransform(psi);
+    }
+  }
+
+  // psi -= <phi|psi> phi for every state phi already found
+  void orthogonalize(double[] psi){
+    for(int k=0; k<states.size(); k++){
+      double[] phi = states.get(k);
+      double re = 0, im = 0;
+      for(int i=0, n=psi.length; i<n; i+=2){
+        re += phi[i]*psi[i] + phi[i+1]*psi[i+1];
+        im += phi[i]*psi[i+1] - phi[i+1]*psi[i];
+      }
+      for(int i=0, n=psi.length; i<n; i+=2){
+        psi[i]   -= re*phi[i] - im*phi[i+1];
+        psi[i+1] -= re*phi[i+1] + im*phi[i];
+      }
+    }
+  }
+
+  // scales psi to unit norm and returns the norm it had
+  static double normalize(double[] psi){
+    double sum = 0;
+    for(int i=0, n=psi.length; i<n; i++){
+      sum += psi[i]*psi[i];
+    }
+    double norm = Math.sqrt(sum);
+    for(int i=0, n=psi.length; i<n; i++){
+      psi[i] /= norm;
+    }
+    return norm;
+  }
+
+  /**
+   * Gets the expectation value of the energy, computed with one extra FFT.
+   */
+  public double getEnergy(double[] psi){
+    if(work==null){
+      work = new double[psi.length];
+    }
+    System.arraycopy(psi, 0, work, 0, psi.length);
+    transform(work);
+    double sum = 0, t = 0, v = 0, k2 = 0;
+    for(int i=0, n=U.length; i<n; i++){
+      double rho = psi[2*i]*psi[2*i] + psi[2*i+1]*psi[2*i+1];
+      double rhoK = work[2*i]*work[2*i] + work[2*i+1]*work[2*i+1];
+      sum += rho;
+      v += U[i]*rho;
+      k2 += rhoK;
+      t += kinetic[i]*rhoK;
+    }
+    return t/k2 + v/sum;
+  }
+
+  public int getStateCount(){
+    return states.size();
+  }
+
+  public double[] getState(int i){
+    return states.get(i);
+  }
+
+  public double getEnergy(int i){
+    return energies.get(i).doubleValue();
+  }
+
+  /** Number of imaginary time steps used to converge the i-th state. */
+  public int getSteps(int i){
+    return stepCounts.get(i).intValue();
+  }
+
+  public void clear(){
+    states.clear();
+    energies.clear();
+    stepCounts.clear();
+  }
+}
@@ -0,0 +1,51 @@
+import org.opensourcephysics.numerics.*;
+
+/**
+ * A potential V(x, y, t) parsed from an expression such as "50*((x-cos(t))^2+y^2)".
+ * Each thread evaluates its own copy of the parsed function.
+ */
+public class ParsedPotential implements Potential {
+  static final String[] VARIABLES = {"x", "y", "t"};
+  final String expression;
+  final boolean timeDependent;
+  final ThreadLocal<Evaluator> evaluator = new ThreadLocal<Evaluator>() {
+    protected Evaluator initialValue() {
+      try{
+        return new Evaluator(new ParsedMultiVarFunction(expression, VARIABLES));
+      } catch(ParserException ex){ // already parsed once in the constructor
+        throw new IllegalStateException(ex.getMessage());
+      }
+    }
+  };
+
+  public ParsedPotential(String expression) throws ParserException {
+    this.expression = expression;
+    new ParsedMultiVarFunction(expression, VARIABLES);  // report syntax errors now
+    timeDependent = expression.matches(".*(^|[^A-Za-z0-9_])t([^A-Za-z0-9_(]|$).*");
+  }
+
+  public double evaluate(double x, double y, double t){
+    Evaluator e = evaluator.get();
+    e.args[0] = x;
+    e.args[1] = y;
+    e.args[2] = t;
+    return e.function.evaluate(e.args);
+  }
+
+  public boolean isTimeDependent(){
+    return timeDependent;
+  }
+
+  public String toString(){
+    return "V(x,y,t) = "+expression;
+  }
+
+  static class Evaluator {
+    final ParsedMultiVarFunction function;
+    final double[] args = new double[3];
+
+    Evaluator(ParsedMultiVarFunction function){
+      this.function = function;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+/**
+ * A potential energy V(x, y, t) for the split-operator propagators.
+ *
+ * Static potentials are sampled once. Time-dependent potentials are re-sampled at the middle of
+ * every step, possibly from several threads at once, so evaluate must be thread safe.
+ */
+public interface Potential {
+
+  public double evaluate(double x, double y, double t);
+
+  public boolean isTimeDependent();
+}
@@ -1,3 +1,9 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.opensourcephysics.numerics.*;
 
 
@@ -5,18 +11,64 @@ public class SplitOrder {
   double[] Psi,   // Wave Function
              T,   // Kinetic Energy Operator:(dt)       [ Wrapped ]
              V;   // Potential Energy Operator:(dt/2)   [ Natural ]
+  double[] U;     // Potential sampled on the grid      [ Natural ]
+  double[] p_x, p_y;
+  double[] x_grid, y_grid;
+  Potential potential;
+  double sampleTime;             // time at which U was sampled
+  double[] phaseCoefficients;    // a such that phaseArrays[k] = exp(-i U a dt)
+  double[][] phaseArrays;
+  SplittingScheme scheme;
+  double[][] Vop, // Potential Energy Operator:(a[s]*dt) for each stage
+             Top; // Kinetic Energy Operator/A:(b[s]*dt) for each stage
+  double[] Vmerged; // Potential Energy Operator:((a[0]+a[m])*dt)  fused mode
+  boolean fused = false;
+  boolean halfStepPending = false; // fused mode has not yet applied the trailing V step
+  boolean compact = false;
+  int[] runs;                      // compact mode: [start, end) ranges of grid indices where U != 0
+  int supportSize;                 // compact mode: number of grid points where U != 0
+  int absorbWidth = 0;             // number of grid points in each absorbing edge strip
+  double absorbStrength = 0;       // complex absorbing potential strength; 0 for the cos^(1/8) mask
+  double absorbDt;                 // the step over which the cos^(1/8) mask is applied once
+  double absorberStep = Double.NaN; // the step that the absorbing factors are built for
+  double[] absorbX, absorbY;       // absorbing factors along x and y; 1 in the interior
+  boolean adaptive = false;
+  double tolerance = 1.0e-6;       // relative L2 error per step in adaptive mode
+  double dtMin = 1.0e-8, dtMax = Double.MAX_VALUE;
+  double[] psiStart, psiFull;      // adaptive mode workspace
+  WaveObservables observables;
+  int stepCount = 0;
+  double[] psiObserved;            // Psi(t) in momentum space for the observables
+  // recently used phase operators keyed by dt
+  LinkedHashMap<Double, Operators> operatorCache = new LinkedHashMap<Double, Operators>(8, 0.75f, true) {
+    protected boolean removeEldestEntry(Map.Entry<Double, Operators> eldest) {
+      return size()>4;
+    }
+  };
   FFT2D fft;
   double t, dt, xmin, xmax, ymin, ymax;
   double A;
   int Nx, Ny;
 
-  public SplitOrder(Function f, double xMode, double yMode, double xmin, double max, double ymin, double ymax, int nx, int ny, double xinit, double yinit){
+  public SplitOrder(Function f, double xMode, double yMode, double xmin, double xmax, double ymin, double ymax, int nx, int ny, double xinit, double yinit){
+    this(f, xMode, yMode, xmin, xmax, ymin, ymax, nx, ny, xinit, yinit, 0.001, SplittingScheme.STRANG);
+  }
+
+  public SplitOrder(Function f, double xMode, double yMode, double xmin, double xmax, double ymin, double ymax, int nx, int ny, double xinit, double yinit,
+                    double dt, SplittingScheme scheme){
+    this(f, xMode, yMode, xmin, xmax, ymin, ymax, nx, ny, xinit, yinit, dt, scheme, null);
+  }
+
+  /**
+   * Creates the propagator for the given potential; a null potential uses getV.
+   */
+  public SplitOrder(Function f, double xMode, double yMode, double xmin, double xmax, double ymin, double ymax, int nx, int ny, double xinit, double yinit,
+                    double dt, SplittingScheme scheme, Potential potential){
     fft = new FFT2D(nx, ny);     //
     Psi = new double[2*nx*ny];   //  Allocate Memory
-    T = new double[2*nx*ny];     //
-    V = new double[2*nx*ny];     //
-    dt = 1.0/Math.max( fft.getFreqMax(ymin, ymax, ny),  fft.getFreqMax(xmin, xmax, nx));  // minimum allowed timestep
-    dt = 0.001;
+    U = new double[nx*ny];       //
+    this.dt = dt;
+    this.scheme = scheme;
     t  = 0.0;                    //
     this.xmin = xmin;
     this.xmax = xmax;
@@ -26,12 +78,14 @@ public class SplitOrder {
     Ny = ny;
     A = Nx*Ny;
 
-    // Psi + V
+    // Psi + U
     double x0 = xmin, dx = (xmax-xmin)/(nx-1);
     double y0 = ymin, dy = (ymax-ymin)/(ny-1);
     // T
-    double[] p_x = fft.getWrappedOmegaX(xmin, xmax);
-    double[] p_y = fft.getWrappedOmegaY(ymin, ymax);
+    p_x = fft.getWrappedOmegaX(xmin, xmax);
+    p_y = fft.getWrappedOmegaY(ymin, ymax);
+    x_grid = new double[nx];
+    y_grid = new double[ny];
 
     for(int iy=0; iy<ny; iy++){
       x0 = xmin;
@@ -45,23 +99,513 @@ public class SplitOrder {
         Psi[offset+2*ix+1] = f.evaluate(xq*xq+yq*yq)*(Math.sin(xMode*xq)*Math.cos(-yMode*yq)
                          +Math.cos(xMode*xq)*Math.sin(-yMode*yq));
 
-        // initialize T operator
-        double px = p_x[ix], py = p_y[iy];
-        T[offset+2*ix] =  Math.cos((px*px+py*py)*dt/2.0);
-        T[offset+2*ix+1] = -Math.sin((px*px+py*py)*dt/2.0);
+        x_grid[ix] = x0;
+        x0 += dx;
+      }
+      y_grid[iy] = y0;
+      y0 += dy;
+    }
+    if(potential==null){
+      potential = new Potential(){
+        public double evaluate(double x, double y, double t){
+          return getV(x, y);
+        }
+        public boolean isTimeDependent(){
+          return false;
+        }
+      };
+    }
+    this.potential = potential;
+    ForkJoinPool.commonPool().invoke(new SampleTask(this, 0, Ny, 0, false));   // sample U once
+    buildOperators();
+  }
+
+  /**
+   * Replaces the potential and rebuilds the phase operators.
+   */
+  public void setPotential(Potential potential){
+    synchronize();
+    this.potential = potential;
+    ForkJoinPool.commonPool().invoke(new SampleTask(this, 0, Ny, t, false));
+    sampleTime = t;
+    operatorCache.clear();
+    buildOperators();
+  }
 
-        // initialize V operator
-        V[offset+2*ix] =  Math.cos(getV(x0,y0)*dt/2.0);
-        V[offset+2*ix+1] = -Math.sin(getV(x0,y0)*dt/2.0);
+  public Potential getPotential(){
+    return potential;
+  }
 
-        x0 += dy;
+  /**
+   * Re-samples a time-dependent potential at the given time. Only the phase factors of grid points
+   * whose potential changed are recomputed, and operators cached for other values of dt are dropped.
+   */
+  void updatePotential(double time){
+    if(time==sampleTime){
+      return;
+    }
+    SampleTask task = new SampleTask(this, 0, Ny, time, !compact);
+    ForkJoinPool.commonPool().invoke(task);
+    sampleTime = time;
+    if(task.changed){
+      operatorCache.clear();
+      if(compact){
+        buildOperators(); // the points where U != 0 may have moved
+      }
+    }
+  }
+
+  /**
+   * Samples the potential on a band of rows, splitting the band in half until a task holds a few rows.
+   * In update mode the phase arrays are patched wherever U changes.
+   */
+  static class SampleTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final SplitOrder so;
+    final int start, end;
+    final double time;
+    final boolean update;
+    boolean changed = false;
+
+    SampleTask(SplitOrder so, int start, int end, double time, boolean update){
+      this.so = so;
+      this.start = start;
+      this.end = end;
+      this.time = time;
+      this.update = update;
+    }
+
+    protected void compute(){
+      if(end-start>4){
+        int mid = (start+end)>>>1;
+        SampleTask a = new SampleTask(so, start, mid, time, update);
+        SampleTask b = new SampleTask(so, mid, end, time, update);
+        invokeAll(a, b);
+        changed = a.changed || b.changed;
+        return;
+      }
+      double[] U = so.U;
+      double[] coef = so.phaseCoefficients;
+      double[][] arrays = so.phaseArrays;
+      double dt = so.dt;
+      int nx = so.Nx;
+      for(int iy=start; iy<end; iy++){
+        double y = so.y_grid[iy];
+        for(int ix=0; ix<nx; ix++){
+          int k = iy*nx+ix;
+          double u = so.potential.evaluate(so.x_grid[ix], y, time);
+          if(u==U[k]){
+            continue;
+          }
+          U[k] = u;
+          changed = true;
+          if(update){
+            for(int j=0; j<coef.length; j++){
+              arrays[j][2*k]   =  Math.cos(u*coef[j]*dt);
+              arrays[j][2*k+1] = -Math.sin(u*coef[j]*dt);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Recomputes the phase operators from the sampled potential, dt and the splitting scheme.
+   */
+  void buildOperators(){
+    if(compact){
+      findSupport();
+    }
+    V = potentialPhase(dt/2.0);
+    T = compact ? null : kineticPhase(dt, 1.0);
+    Vop = Top = null;
+    Vmerged = null;
+    // stages with the same coefficient share one array
+    HashMap<Double, double[]> vCache = new HashMap<Double, double[]>();
+    vCache.put(Double.valueOf(0.5), V);
+    if(fused || compact || scheme!=SplittingScheme.STRANG){
+      HashMap<Double, double[]> tCache = new HashMap<Double, double[]>();
+      int m = scheme.b.length;
+      Vop = new double[m+1][];
+      Top = new double[m][];
+      for(int s=0; s<=m; s++){
+        Vop[s] = potentialOperator(scheme.a[s], vCache);
+      }
+      for(int s=0; s<m; s++){
+        Double key = Double.valueOf(scheme.b[s]);
+        Top[s] = tCache.get(key);
+        if(Top[s]==null){
+          Top[s] = kineticPhase(scheme.b[s]*dt, 1.0/A);  // fold the inverse FFT normalization into T
+          tCache.put(key, Top[s]);
+        }
+      }
+      if(fused){
+        Vmerged = potentialOperator(scheme.a[0]+scheme.a[m], vCache);
+      }
+    }
+    // remember which arrays depend on U so that a time-dependent potential can patch them
+    phaseCoefficients = new double[vCache.size()];
+    phaseArrays = new double[vCache.size()][];
+    int k = 0;
+    for(Map.Entry<Double, double[]> entry : vCache.entrySet()){
+      phaseCoefficients[k] = entry.getKey().doubleValue();
+      phaseArrays[k++] = entry.getValue();
+    }
+  }
+
+  double[] potentialOperator(double a, HashMap<Double, double[]> cache){
+    Double key = Double.valueOf(a);
+    double[] op = cache.get(key);
+    if(op==null){
+      op = potentialPhase(a*dt);
+      cache.put(key, op);
+    }
+    return op;
+  }
+
+  // op = exp(-i U tau); in compact mode only the points inside the runs are stored
+  double[] potentialPhase(double tau){
+    if(compact){
+      double[] op = new double[2*supportSize];
+      for(int r=0, j=0; r<runs.length; r+=2){
+        for(int i=runs[r]; i<runs[r+1]; i++, j+=2){
+          op[j]   =  Math.cos(U[i]*tau);
+          op[j+1] = -Math.sin(U[i]*tau);
+        }
+      }
+      return op;
+    }
+    double[] op = new double[Psi.length];
+    for(int i=0, n=U.length; i<n; i++){
+      op[2*i]   =  Math.cos(U[i]*tau);
+      op[2*i+1] = -Math.sin(U[i]*tau);
+    }
+    return op;
+  }
+
+  // op = scale*exp(-i p^2 tau/2); in compact mode the Nx factors exp(-i px^2 tau/2) are followed by
+  // the Ny factors scale*exp(-i py^2 tau/2)
+  double[] kineticPhase(double tau, double scale){
+    if(compact){
+      double[] op = new double[2*(Nx+Ny)];
+      for(int ix=0; ix<Nx; ix++){
+        op[2*ix]   =  Math.cos(p_x[ix]*p_x[ix]*tau/2.0);
+        op[2*ix+1] = -Math.sin(p_x[ix]*p_x[ix]*tau/2.0);
+      }
+      for(int iy=0; iy<Ny; iy++){
+        op[2*(Nx+iy)]   =  scale*Math.cos(p_y[iy]*p_y[iy]*tau/2.0);
+        op[2*(Nx+iy)+1] = -scale*Math.sin(p_y[iy]*p_y[iy]*tau/2.0);
+      }
+      return op;
+    }
+    double[] op = new double[Psi.length];
+    for(int iy=0; iy<Ny; iy++){
+      int offset = 2*iy*Nx;
+      double py = p_y[iy];
+      for(int ix=0; ix<Nx; ix++){
+        double px = p_x[ix];
+        op[offset+2*ix]   =  scale*Math.cos((px*px+py*py)*tau/2.0);
+        op[offset+2*ix+1] = -scale*Math.sin((px*px+py*py)*tau/2.0);
+      }
+    }
+    return op;
+  }
+
+  // finds the runs of grid points where U != 0
+  void findSupport(){
+    int count = 0, n = U.length;
+    for(int i=0; i<n; i++){
+      if(U[i]!=0 && (i==0 || U[i-1]==0)){
+        count++;
+      }
+    }
+    runs = new int[2*count];
+    supportSize = 0;
+    for(int i=0, r=0; i<n; i++){
+      if(U[i]!=0){
+        if(i==0 || U[i-1]==0){
+          runs[r] = i;
+        }
+        supportSize++;
+        if(i==n-1 || U[i+1]==0){
+          runs[r+1] = i+1;
+          r += 2;
+        }
+      }
+    }
+  }
+
+  /**
+   * Stores the kinetic phase operators as two 1D factors and the potential phase operators only at
+   * the grid points where the potential is not zero. Each operator then takes 2*(Nx+Ny) or
+   * 2*(number of points with U != 0) values instead of 2*Nx*Ny; the compact potential operators
+   * are rebuilt whenever a time-dependent potential changes.
+   */
+  public void setCompact(boolean compact){
+    synchronize();
+    if(this.compact!=compact){
+      this.compact = compact;
+      operatorCache.clear();
+      buildOperators();
+    }
+  }
+
+  public boolean isCompact(){
+    return compact;
+  }
+
+  /**
+   * Sets the time step. The phase operators are rebuilt only if dt changes and the
+   * operators for dt are not among the recently used ones.
+   */
+  public void setDt(double dt){
+    if(dt==this.dt){
+      return;
+    }
+    synchronize();
+    operatorCache.put(Double.valueOf(this.dt), new Operators(this));
+    this.dt = dt;
+    Operators ops = operatorCache.get(Double.valueOf(dt));
+    if(ops!=null){
+      ops.restore(this);
+    } else {
+      buildOperators();
+    }
+  }
+
+  /**
+   * Adds absorbing strips of the given number of grid points along the edges of the box so that
+   * outgoing waves are not wrapped around by the periodic FFT.
+   *
+   * With a positive strength the strips hold a complex absorbing potential -i W with
+   * W = strength*s^2, where s rises from 0 at the inner edge of a strip to 1 at the boundary;
+   * Psi is multiplied by exp(-W h) after every step h. A zero strength uses the mask cos(pi s/2)^(1/8)
+   * instead, applied once per step of the current dt and raised to the power h/dt for a step h, so
+   * that the absorption per unit time does not depend on the step. A zero width removes the strips.
+   */
+  public void setAbsorbingBoundary(int width, double strength){
+    if(width<0 || 2*width>Math.min(Nx, Ny)){
+      throw new IllegalArgumentException("The absorbing strips must fit in the grid: width = "+width);
+    }
+    absorbWidth = width;
+    absorbStrength = strength;
+    absorbDt = dt;
+    absorberStep = Double.NaN;
+    absorbX = absorbY = null;
+  }
+
+  public int getAbsorbingWidth(){
+    return absorbWidth;
+  }
+
+  void buildAbsorber(double h){
+    absorbX = absorberTable(Nx, h);
+    absorbY = absorberTable(Ny, h);
+    absorberStep = h;
+  }
+
+  // 1D absorbing factors for a step h; only the first and last absorbWidth entries differ from 1
+  double[] absorberTable(int n, double h){
+    double[] table = new double[n];
+    Arrays.fill(table, 1.0);
+    for(int k=0; k<absorbWidth; k++){
+      double s = (double) (absorbWidth-k)/absorbWidth;
+      double factor = (absorbStrength>0) ? Math.exp(-absorbStrength*s*s*h)
+                                         : Math.pow(Math.cos(Math.PI*s/2), h/(8*absorbDt));
+      table[k] = factor;
+      table[n-1-k] = factor;
+    }
+    return table;
+  }
+
+  // multiplies Psi by the absorbing factors of a step h; interior rows only touch their two edge strips
+  void absorb(double h){
+    if(h!=absorberStep){
+      buildAbsorber(h);
+    }
+    double[] psi = Psi;
+    int w = absorbWidth;
+    for(int iy=0; iy<Ny; iy++){
+      int offset = 2*iy*Nx;
+      if(iy>=w && iy<Ny-w){
+        for(int ix=0; ix<w; ix++){
+          int i = offset+2*ix, j = offset+2*(Nx-1-ix);
+          psi[i] *= absorbX[ix];
+          psi[i+1] *= absorbX[ix];
+          psi[j] *= absorbX[Nx-1-ix];
+          psi[j+1] *= absorbX[Nx-1-ix];
+        }
+      } else {
+        double fy = absorbY[iy];
+        for(int ix=0; ix<Nx; ix++){
+          double factor = absorbX[ix]*fy;
+          psi[offset+2*ix] *= factor;
+          psi[offset+2*ix+1] *= factor;
+        }
       }
-      y0 += dy;
     }
+  }
+
+  public double getDt(){
+    return dt;
+  }
+
+  /**
+   * Enables step-doubling error control. Each step is compared with two half steps and dt is
+   * halved or doubled so that the relative L2 difference stays below the tolerance.
+   */
+  public void setAdaptive(boolean adaptive, double tolerance){
+    this.adaptive = adaptive;
+    this.tolerance = tolerance;
+    if(adaptive && psiStart==null){
+      psiStart = new double[Psi.length];
+      psiFull = new double[Psi.length];
+    }
+  }
+
+  public void setDtRange(double dtMin, double dtMax){
+    this.dtMin = dtMin;
+    this.dtMax = dtMax;
+  }
 
+  public SplittingScheme getScheme(){
+    return scheme;
+  }
+
+  /**
+   * Merges the trailing V step of each step with the leading V step of the next step.
+   *
+   * In fused mode Psi lags by a V step after each step; call synchronize before reading Psi.
+   */
+  public void setFused(boolean fused){
+    synchronize();
+    if(this.fused!=fused){
+      this.fused = fused;
+      operatorCache.clear();
+      buildOperators();
+    }
+  }
+
+  /**
+   * Applies the pending V step so that Psi is the wave function at time t.
+   */
+  public void synchronize(){
+    if(halfStepPending){
+      multiplyPotential(Vop[Vop.length-1]);
+      halfStepPending = false;
+    }
   }
 
   double step() {
+    boolean observed = (observables!=null) && ((stepCount+1)%observables.interval==0);
+    double h = adaptive ? adaptiveStep() : fixedStep();
+    if(absorbWidth>0){  // once per accepted step, outside the step-doubling comparison
+      absorb(h);        // a real factor commutes with a pending V step
+    }
+    stepCount++;
+    if(observed){
+      observe();
+    }
+    return h;
+  }
+
+  /**
+   * Computes the observables of Psi(t). The momentum-space values need one extra transform because
+   * the trailing V step of every scheme changes the phase, and so the momentum distribution, of the
+   * transformed array that the last kinetic stage sees.
+   */
+  void observe(){
+    synchronize();  // fused mode: the pending V step is a phase that belongs to Psi(t)
+    if(psiObserved==null){
+      psiObserved = new double[Psi.length];
+    }
+    System.arraycopy(Psi, 0, psiObserved, 0, Psi.length);
+    fft.transform(psiObserved);
+    observables.momentumPass(this, psiObserved);
+    observables.positionPass(this, t);
+  }
+
+  /**
+   * Sets the observables that are computed every few steps; null removes them.
+   */
+  public void setObservables(WaveObservables observables){
+    this.observables = observables;
+  }
+
+  public WaveObservables getObservables(){
+    return observables;
+  }
+
+  /**
+   * Takes one step of dt and compares it with two steps of dt/2. The step is repeated with a
+   * smaller dt until the difference is below the tolerance; dt then grows if the error allows.
+   *
+   * @return the time advanced
+   */
+  double adaptiveStep() {
+    synchronize();
+    boolean fusedMode = fused;
+    fused = false; // the comparison needs Psi at the end of each step
+    int p = scheme.order;
+    double t0 = t;
+    while(true){
+      double h = dt;
+      System.arraycopy(Psi, 0, psiStart, 0, Psi.length);
+      fixedStep();
+      System.arraycopy(Psi, 0, psiFull, 0, Psi.length);
+      System.arraycopy(psiStart, 0, Psi, 0, Psi.length);
+      t = t0;
+      setDt(h/2);
+      fixedStep();
+      fixedStep();
+      double diff = 0, norm = 0;
+      for(int i=0, n=Psi.length; i<n; i++){
+        double d = psiFull[i]-Psi[i];
+        diff += d*d;
+        norm += Psi[i]*Psi[i];
+      }
+      double err = Math.sqrt(diff/norm)*Math.pow(2, p)/(Math.pow(2, p)-1); // error of the full step
+      if(err<=tolerance || h/2<dtMin){
+        // dt changes by powers of two so that recently used operators are reused
+        double next = h;
+        if(err<tolerance*Math.pow(0.5, p+2) && 2*h<=dtMax){
+          next = 2*h;
+        } else if(err>tolerance*Math.pow(0.5, 1)){
+          next = h/2;
+        }
+        setDt(next);
+        fused = fusedMode;
+        return h;
+      }
+      System.arraycopy(psiStart, 0, Psi, 0, Psi.length); // reject and retry with dt/2
+      t = t0;
+    }
+  }
+
+  /**
+   * Takes one step of dt. A time-dependent potential is sampled at the middle of the step;
+   * the pending V step of fused mode is applied first because it belongs to the previous step.
+   * strangStep applies the dense V and T arrays of one whole Strang step, so the other schemes and
+   * two modes take the staged scheme path: fused mode merges the trailing V factor of each step with
+   * the leading V factor of the next, and compact mode stores V only on the support of U and T as
+   * separable factors along x and y.
+   */
+  double fixedStep() {
+    if(potential.isTimeDependent()){
+      synchronize();
+      updatePotential(t+dt/2);
+    }
+    if(fused || compact || scheme!=SplittingScheme.STRANG){
+      schemeStep();
+    } else {
+      strangStep();
+    }
+    t += dt;
+    return dt;
+  }
+
+  double strangStep() {
     double realVT=0, imagVT=0;
     double realP=0, imagP=0;
 
@@ -90,7 +634,7 @@ public class SplitOrder {
         Psi[offset+2*j+1] = realVT*imagP + imagVT*realP;
       }
     }
-    fft.inverse(Psi);
+    fft.backtransform(Psi);  // unnormalized; the last V step divides by A
     for(int i=0; i<Nx; i++){
       int offset = 2*i*Ny;
       for(int j=0; j<Ny; j++){
@@ -107,6 +651,96 @@ public class SplitOrder {
     return dt;
   }
 
+  // V T V ... T V; in fused mode the trailing V of the previous step is merged into this step's leading V
+  double schemeStep() {
+    for(int s=0, m=Top.length; s<m; s++){
+      multiplyPotential((s==0 && halfStepPending) ? Vmerged : Vop[s]);
+      fft.transform(Psi);
+      multiplyKinetic(Top[s]);
+      fft.backtransform(Psi);
+    }
+    if(fused){
+      halfStepPending = true;
+    } else {
+      multiplyPotential(Vop[Vop.length-1]);
+    }
+    return dt;
+  }
+
+  // phase operators for one value of dt
+  static class Operators {
+    final double[] T, V, Vmerged;
+    final double[][] Vop, Top;
+    final double[] phaseCoefficients;
+    final double[][] phaseArrays;
+
+    Operators(SplitOrder so){
+      phaseCoefficients = so.phaseCoefficients;
+      phaseArrays = so.phaseArrays;
+      T = so.T;
+      V = so.V;
+      Vmerged = so.Vmerged;
+      Vop = so.Vop;
+      Top = so.Top;
+    }
+
+    void restore(SplitOrder so){
+      so.phaseCoefficients = phaseCoefficients;
+      so.phaseArrays = phaseArrays;
+      so.T = T;
+      so.V = V;
+      so.Vmerged = Vmerged;
+      so.Vop = Vop;
+      so.Top = Top;
+    }
+  }
+
+  // psi = op*psi; a single flat loop over the interleaved arrays
+  static void multiply(double[] op, double[] psi){
+    for(int i=0, n=psi.length; i<n; i+=2){
+      double re = op[i], im = op[i+1];
+      double pr = psi[i], pi = psi[i+1];
+      psi[i]   = re*pr - im*pi;
+      psi[i+1] = re*pi + im*pr;
+    }
+  }
+
+  // Psi = op*Psi for a potential phase operator; in compact mode the points outside the runs are unchanged
+  void multiplyPotential(double[] op){
+    if(!compact){
+      multiply(op, Psi);
+      return;
+    }
+    double[] psi = Psi;
+    for(int r=0, j=0; r<runs.length; r+=2){
+      for(int i=2*runs[r], n=2*runs[r+1]; i<n; i+=2, j+=2){
+        double re = op[j], im = op[j+1];
+        double pr = psi[i], pi = psi[i+1];
+        psi[i]   = re*pr - im*pi;
+        psi[i+1] = re*pi + im*pr;
+      }
+    }
+  }
+
+  // Psi = op*Psi for a kinetic phase operator; in compact mode op is the product of a row and a column factor
+  void multiplyKinetic(double[] op){
+    if(!compact){
+      multiply(op, Psi);
+      return;
+    }
+    double[] psi = Psi;
+    for(int iy=0; iy<Ny; iy++){
+      double yr = op[2*(Nx+iy)], yi = op[2*(Nx+iy)+1];
+      for(int ix=0, i=2*iy*Nx; ix<Nx; ix++, i+=2){
+        double xr = op[2*ix], xi = op[2*ix+1];
+        double re = xr*yr - xi*yi, im = xr*yi + xi*yr;
+        double pr = psi[i], pi = psi[i+1];
+        psi[i]   = re*pr - im*pi;
+        psi[i+1] = re*pi + im*pr;
+      }
+    }
+  }
+
   public double dist(double x, double y, double cX, double cY){ // squared distance
     double xx = x-cX;
     xx = xx*xx;
@@ -0,0 +1,174 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Split-operator propagation of a 3D wave function.
+ *
+ * Psi, T and V are flat interleaved complex arrays with the z index varying fastest:
+ *   Re(Psi[ix,iy,iz]) = Psi[2*((ix*Ny + iy)*Nz + iz)]
+ * The FFT and the phase multiplications are split across the cores of the common ForkJoinPool.
+ */
+public class SplitOrder3D {
+  double[] Psi,   // Wave Function
+             T,   // Kinetic Energy Operator:(dt)       [ Wrapped ]
+             V;   // Potential Energy Operator:(dt/2)   [ Natural ]
+  FFT3D fft;
+  double t, dt, xmin, xmax, ymin, ymax, zmin, zmax;
+  double A;
+  int Nx, Ny, Nz;
+
+  public SplitOrder3D(Function f, double xMode, double yMode, double zMode,
+                      double xmin, double xmax, double ymin, double ymax, double zmin, double zmax,
+                      int nx, int ny, int nz, double xinit, double yinit, double zinit, double dt){
+    fft = new FFT3D(nx, ny, nz);
+    fft.setParallel(true);
+    Psi = new double[2*nx*ny*nz];   //
+    T = new double[2*nx*ny*nz];     //  Allocate Memory
+    V = new double[2*nx*ny*nz];     //
+    this.dt = dt;
+    t  = 0.0;
+    this.xmin = xmin;
+    this.xmax = xmax;
+    this.ymin = ymin;
+    this.ymax = ymax;
+    this.zmin = zmin;
+    this.zmax = zmax;
+    Nx = nx;
+    Ny = ny;
+    Nz = nz;
+    A = (double) Nx*Ny*Nz;
+
+    double dx = (xmax-xmin)/(nx-1), dy = (ymax-ymin)/(ny-1), dz = (zmax-zmin)/(nz-1);
+    double[] p_x = fft.getWrappedOmegaX(xmin, xmax);
+    double[] p_y = fft.getWrappedOmegaY(ymin, ymax);
+    double[] p_z = fft.getWrappedOmegaZ(zmin, zmax);
+
+    for(int ix=0; ix<nx; ix++){
+      double x = xmin+ix*dx, xq = x-xinit;
+      for(int iy=0; iy<ny; iy++){
+        double y = ymin+iy*dy, yq = y-yinit;
+        int offset = 2*(ix*ny+iy)*nz;
+        for(int iz=0; iz<nz; iz++){
+          double z = zmin+iz*dz, zq = z-zinit;
+          // initialize psi : (Gaussian Packet)
+          double amp = f.evaluate(xq*xq+yq*yq+zq*zq);
+          double phase = xMode*xq+yMode*yq+zMode*zq;
+          Psi[offset+2*iz]   = amp*Math.cos(phase);
+          Psi[offset+2*iz+1] = amp*Math.sin(phase);
+
+          // initialize T operator
+          double p2 = p_x[ix]*p_x[ix]+p_y[iy]*p_y[iy]+p_z[iz]*p_z[iz];
+          T[offset+2*iz]   =  Math.cos(p2*dt/2.0);
+          T[offset+2*iz+1] = -Math.sin(p2*dt/2.0);
+
+          // initialize V operator
+          double v = getV(x, y, z);
+          V[offset+2*iz]   =  Math.cos(v*dt/2.0);
+          V[offset+2*iz+1] = -Math.sin(v*dt/2.0);
+        }
+      }
+    }
+  }
+
+  double step() {
+    multiply(V, 1.0);
+    fft.transform(Psi);
+    multiply(T, 1.0);
+    fft.backtransform(Psi);
+    multiply(V, 1.0/A);
+    t += dt;
+    return dt;
+  }
+
+  // Psi = scale*op*Psi on all planes
+  void multiply(double[] op, double scale){
+    ForkJoinPool.commonPool().invoke(new PhaseTask(Psi, op, scale, 0, Nx, 2*Ny*Nz));
+  }
+
+  public double getNorm(){
+    double dx = (xmax-xmin)/(Nx-1), dy = (ymax-ymin)/(Ny-1), dz = (zmax-zmin)/(Nz-1);
+    double sum = 0;
+    for(int i=0, n=Psi.length; i<n; i++){
+      sum += Psi[i]*Psi[i];
+    }
+    return sum*dx*dy*dz;
+  }
+
+  public double dist(double x, double y, double z, double cX, double cY, double cZ){ // squared distance
+    double xx = x-cX, yy = y-cY, zz = z-cZ;
+    return (xx*xx + yy*yy + zz*zz);
+  }
+
+  public double getV(double x, double y, double z){
+    if(dist(x,y,z, -1.5, -1.5, 0) <= 3){
+      return 10000.0;
+    }
+    else if(dist(x,y,z, 1.5, 1.5, 0) <= 3){
+      return 10000.0;
+    }
+    else return 0.0;
+  }
+
+  /**
+   * Multiplies the planes of Psi by the planes of a phase operator, splitting the planes in half until
+   * a task holds a few planes.
+   */
+  static class PhaseTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final double[] psi, op;
+    final double scale;
+    final int start, end, planespan;
+
+    PhaseTask(double[] psi, double[] op, double scale, int start, int end, int planespan){
+      this.psi = psi;
+      this.op = op;
+      this.scale = scale;
+      this.start = start;
+      this.end = end;
+      this.planespan = planespan;
+    }
+
+    protected void compute(){
+      if(end-start>2){
+        int mid = (start+end)>>>1;
+        invokeAll(new PhaseTask(psi, op, scale, start, mid, planespan),
+                  new PhaseTask(psi, op, scale, mid, end, planespan));
+        return;
+      }
+      for(int i=start*planespan, n=end*planespan; i<n; i+=2){
+        double re = op[i], im = op[i+1];
+        double pr = psi[i], pi = psi[i+1];
+        psi[i]   = scale*(re*pr - im*pi);
+        psi[i+1] = scale*(re*pi + im*pr);
+      }
+    }
+  }
+
+  /**
+   * Runs a headless propagation and reports the throughput.
+   * Arguments: N [steps [dt]] for an N x N x N grid on [-4 pi, 4 pi]^3.
+   */
+  public static void main(String[] args){
+    int n = (args.length>0) ? Integer.parseInt(args[0]) : 128;
+    int steps = (args.length>1) ? Integer.parseInt(args[1]) : 20;
+    double dt = (args.length>2) ? Double.parseDouble(args[2]) : 0.001;
+    Function f = null;
+    try{
+      f = new ParsedFunction("exp(-r*r/2)", "r");
+    } catch(ParserException ex){
+      return;
+    }
+    double L = 4*Math.PI;
+    SplitOrder3D wavefunction = new SplitOrder3D(f, 2, 5, 0, -L, L, -L, L, -L, L, n, n, n, -5.0, -3.0, 0.0, dt);
+    double norm0 = wavefunction.getNorm();
+    long start = System.nanoTime();
+    for(int i=0; i<steps; i++){
+      wavefunction.step();
+    }
+    double seconds = (System.nanoTime()-start)/1.0e9;
+    System.out.println(n+"^3 grid, "+steps+" steps, "+(steps/seconds)+" steps/s, "
+                       +ForkJoinPool.commonPool().getParallelism()+" threads, norm drift "
+                       +(wavefunction.getNorm()/norm0-1));
+  }
+}
@@ -37,14 +37,36 @@ public class SplitOrderApp extends AbstractSimulation {
     int ny = control.getInt("Ny");
     double xinit = control.getDouble("x init");
     double yinit = control.getDouble("y init");
+    double dt = control.getDouble("dt");
+    String vStr = control.getString("V(x,y,t)").trim();
+    Potential potential = null;           // empty string: two-disc barrier of SplitOrder.getV
+    if(vStr.length()>0){
+      try{
+        potential = new ParsedPotential(vStr);
+      } catch(ParserException ex){
+        control.println("Error parsing potential string: "+vStr);
+        return;
+      }
+    }
+    SplittingScheme scheme = null;
+    try{
+      scheme = SplittingScheme.forName(control.getString("splitting"));
+    } catch(IllegalArgumentException ex){
+      control.println(ex.getMessage());
+      return;
+    }
 
 
-    wavefunction = new SplitOrder(f, xMode, yMode, xmin, xmax, ymin, ymax, nx, ny, xinit, yinit);
+    wavefunction = new SplitOrder(f, xMode, yMode, xmin, xmax, ymin, ymax, nx, ny, xinit, yinit, dt, scheme, potential);
+    wavefunction.setFused(true);
+    double tol = control.getDouble("tolerance");  // 0 for a fixed time step
+    if(tol>0){
+      wavefunction.setAdaptive(true, tol);
+    }
+    wavefunction.setAbsorbingBoundary(control.getInt("absorbing width"), control.getDouble("absorbing strength"));
 
-    xFrame.clearData();
     xFrame.setPreferredMinMax(xmin,xmax,ymin,ymax);
-    xFrame.resizeGrid(nx,ny);
-    xFrame.setAll(wavefunction.Psi);
+    xFrame.setSharedData(wavefunction.Psi, nx, xmin, xmax, ymin, ymax);  // the frame displays Psi without copying it
 
 
   }
@@ -52,7 +74,8 @@ public class SplitOrderApp extends AbstractSimulation {
   public void doStep(){
     time += wavefunction.step();
     time += wavefunction.step();
-    xFrame.setAll(wavefunction.Psi);
+    wavefunction.synchronize();
+    xFrame.setSharedData(wavefunction.Psi, wavefunction.Nx);
     xFrame.setVisible(true);
     xFrame.setDefaultCloseOperation(javax.swing.JFrame.EXIT_ON_CLOSE);
     xFrame.setMessage("t = "+decimalFormat.format(time));
@@ -70,6 +93,12 @@ public class SplitOrderApp extends AbstractSimulation {
     control.setValue("Ny", 64);
     control.setValue("x init", -5.0);
     control.setValue("y init", -3.0);
+    control.setValue("dt", 0.001);
+    control.setValue("splitting", "Strang");
+    control.setValue("tolerance", 0);
+    control.setValue("absorbing width", 0);     // grid points; 0 for a periodic box
+    control.setValue("absorbing strength", 0);  // 0 for the cos^(1/8) mask
+    control.setValue("V(x,y,t)", "");
 
     // multiple computation steps per animatoin step
     setStepsPerDisplay(20);
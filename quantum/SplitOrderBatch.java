@@ -0,0 +1,172 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.*;
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Runs SplitOrder simulations without any Swing frames.
+ *
+ * Each argument is a parameter file in java.util.Properties format, for example
+ * <pre>
+ *   f = exp(-r*r/2)
+ *   xmode = 2
+ *   ymode = 5
+ *   xmin = -4*pi
+ *   xmax = 4*pi
+ *   ymin = -4*pi
+ *   ymax = 4*pi
+ *   Nx = 256
+ *   Ny = 256
+ *   xinit = -5
+ *   yinit = -3
+ *   V = 20*((x-2*sin(t))^2+y^2)
+ *   dt = 0.001
+ *   splitting = Strang
+ *   tolerance = 0
+ *   compact = false
+ *   absorbingWidth = 0
+ *   absorbingStrength = 0
+ *   steps = 10000
+ *   checkpointInterval = 1000
+ *   checkpointPrefix = run1
+ *   observablesInterval = 100
+ * </pre>
+ * Numbers may be expressions such as 4*pi. Missing keys take the defaults of SplitOrderApp;
+ * an empty or missing V uses the two-disc barrier of SplitOrder.getV.
+ * The jobs run in parallel on a fixed thread pool; -threads n sets its size.
+ *
+ * A checkpoint is written to prefix_step.psi as Nx, Ny (ints), t (double) and the interleaved Psi array.
+ * When observablesInterval is positive the WaveObservables are written to prefix.tsv.
+ */
+public class SplitOrderBatch implements Callable<String> {
+  final Properties param;
+  final String name;
+
+  public SplitOrderBatch(String name, Properties param){
+    this.name = name;
+    this.param = param;
+  }
+
+  String getString(String key, String defaultValue){
+    return param.getProperty(key, defaultValue).trim();
+  }
+
+  double getDouble(String key, String defaultValue){
+    double value = Util.evalMath(getString(key, defaultValue));
+    if(Double.isNaN(value)){
+      throw new IllegalArgumentException(name+": cannot evaluate "+key+" = "+getString(key, defaultValue));
+    }
+    return value;
+  }
+
+  int getInt(String key, String defaultValue){
+    return (int) Math.round(getDouble(key, defaultValue));
+  }
+
+  public SplitOrder createWavefunction() throws ParserException {
+    Function f = new ParsedFunction(getString("f", "exp(-r*r/2)"), "r");
+    String vStr = getString("V", "");
+    Potential potential = (vStr.length()>0) ? new ParsedPotential(vStr) : null;
+    SplitOrder wavefunction = new SplitOrder(f, getInt("xmode", "2"), getInt("ymode", "5"),
+      getDouble("xmin", "-4*pi"), getDouble("xmax", "4*pi"), getDouble("ymin", "-4*pi"), getDouble("ymax", "4*pi"),
+      getInt("Nx", "64"), getInt("Ny", "64"), getDouble("xinit", "-5"), getDouble("yinit", "-3"),
+      getDouble("dt", "0.001"), SplittingScheme.forName(getString("splitting", "Strang")), potential);
+    wavefunction.setFused(true);
+    wavefunction.setCompact(Boolean.valueOf(getString("compact", "false")).booleanValue());
+    wavefunction.setAbsorbingBoundary(getInt("absorbingWidth", "0"), getDouble("absorbingStrength", "0"));
+    double tol = getDouble("tolerance", "0");
+    if(tol>0){
+      wavefunction.setAdaptive(true, tol);
+    }
+    return wavefunction;
+  }
+
+  public String call() throws Exception {
+    SplitOrder wavefunction = createWavefunction();
+    int steps = getInt("steps", "1000");
+    int interval = getInt("checkpointInterval", "0");
+    String prefix = getString("checkpointPrefix", name);
+    int observablesInterval = getInt("observablesInterval", "0");
+    WaveObservables.FileSink sink = null;
+    if(observablesInterval>0){
+      WaveObservables observables = new WaveObservables(observablesInterval);
+      sink = new WaveObservables.FileSink(prefix+".tsv", observables.getNames());
+      observables.addSink(sink);
+      wavefunction.setObservables(observables);
+    }
+    double time = 0;
+    long start = System.nanoTime();
+    try{
+      for(int i=1; i<=steps; i++){
+        time += wavefunction.step();
+        if(interval>0 && i%interval==0){
+          wavefunction.synchronize();
+          writeCheckpoint(wavefunction, time, prefix+"_"+i+".psi");
+        }
+      }
+      wavefunction.synchronize();
+    } finally {  // flush the observations made so far even if the run fails
+      if(sink!=null){
+        sink.close();
+      }
+    }
+    if(sink!=null && sink.checkError()){
+      throw new IOException("Could not write "+prefix+".tsv");
+    }
+    double seconds = (System.nanoTime()-start)/1.0e9;
+    return name+": "+steps+" steps to t = "+time+" in "+seconds+" s, "+(steps/seconds)+" steps/s";
+  }
+
+  static void writeCheckpoint(SplitOrder wavefunction, double time, String fileName) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1<<16));
+    try{
+      out.writeInt(wavefunction.Nx);
+      out.writeInt(wavefunction.Ny);
+      out.writeDouble(time);
+      double[] psi = wavefunction.Psi;
+      for(int i=0; i<psi.length; i++){
+        out.writeDouble(psi[i]);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int threads = Runtime.getRuntime().availableProcessors();
+    ArrayList<SplitOrderBatch> jobs = new ArrayList<SplitOrderBatch>();
+    for(int i=0; i<args.length; i++){
+      if(args[i].equals("-threads") && i+1<args.length){
+        threads = Integer.parseInt(args[++i]);
+        continue;
+      }
+      Properties param = new Properties();
+      InputStream in = new FileInputStream(args[i]);
+      try{
+        param.load(in);
+      } finally {
+        in.close();
+      }
+      String name = new File(args[i]).getName().replaceFirst("\\.[^.]*$", "");
+      jobs.add(new SplitOrderBatch(name, param));
+    }
+    if(jobs.isEmpty()){
+      System.out.println("usage: java SplitOrderBatch [-threads n] params1.properties [params2.properties ...]");
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    ArrayList<Future<String>> results = new ArrayList<Future<String>>();
+    for(SplitOrderBatch job : jobs){
+      results.add(executor.submit(job));
+    }
+    for(int i=0; i<results.size(); i++){
+      try{
+        System.out.println(results.get(i).get());
+      } catch(ExecutionException ex){
+        System.out.println(jobs.get(i).name+" failed: "+ex.getCause());
+      }
+    }
+    executor.shutdown();
+  }
+}
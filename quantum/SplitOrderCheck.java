@@ -0,0 +1,63 @@
+import org.opensourcephysics.numerics.*;
+
+/**
+ * Checks that the optional modes of SplitOrder reproduce the dense Strang propagator.
+ *
+ * Each check runs the default Gaussian packet against the two-disc barrier on a small grid and
+ * prints the relative L2 difference of Psi from the dense reference.
+ * Arguments: grid size and number of steps, default 64 200.
+ */
+public class SplitOrderCheck {
+  static final double TOLERANCE = 1.0e-12;
+  static int failures = 0;
+
+  public static void main(String[] args) {
+    int n = (args.length>0) ? Integer.parseInt(args[0]) : 64;
+    int steps = (args.length>1) ? Integer.parseInt(args[1]) : 200;
+    double[] dense = run(n, steps, false, false);
+    check("compact Strang", dense, run(n, steps, true, false));
+    check("compact fused Strang", dense, run(n, steps, true, true));
+    check("adaptive compact Strang", run(n, steps, false, false, 1.0e-4), run(n, steps, true, false, 1.0e-4));
+    System.out.println((failures==0) ? "all checks passed" : failures+" checks failed");
+  }
+
+  static double[] run(int n, int steps, boolean compact, boolean fused) {
+    return run(n, steps, compact, fused, 0);
+  }
+
+  static double[] run(int n, int steps, boolean compact, boolean fused, double tolerance) {
+    Function f = new Function() {
+      public double evaluate(double r2) {
+        return Math.exp(-r2/2);
+      }
+
+    };
+    SplitOrder wavefunction = new SplitOrder(f, 2, 5, -4*Math.PI, 4*Math.PI, -4*Math.PI, 4*Math.PI, n, n, -5, -3,
+      0.001, SplittingScheme.STRANG);
+    wavefunction.setCompact(compact);
+    wavefunction.setFused(fused);
+    if(tolerance>0){
+      wavefunction.setAdaptive(true, tolerance);
+    }
+    for(int i=0; i<steps; i++){
+      wavefunction.step();
+    }
+    wavefunction.synchronize();
+    return wavefunction.Psi;
+  }
+
+  static void check(String name, double[] expected, double[] actual) {
+    double diff = 0, norm = 0;
+    for(int i=0; i<expected.length; i++){
+      double d = expected[i]-actual[i];
+      diff += d*d;
+      norm += expected[i]*expected[i];
+    }
+    double err = Math.sqrt(diff/norm);
+    boolean ok = err<=TOLERANCE;
+    if(!ok){
+      failures++;
+    }
+    System.out.println(name+": relative difference "+err+(ok ? " ok" : " FAILED"));
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Coefficients of a symmetric operator splitting
+ *
+ *   exp(a[0] V dt) exp(b[0] T dt) exp(a[1] V dt) ... exp(b[m-1] T dt) exp(a[m] V dt)
+ *
+ * used by SplitOrder. V is the outer (cheap) operator, so every stage costs one forward and
+ * one inverse FFT.
+ */
+public class SplittingScheme {
+  /** Second order Strang splitting: one FFT pair per step. */
+  public static final SplittingScheme STRANG =
+    new SplittingScheme("Strang", 2, new double[] {0.5, 0.5}, new double[] {1.0});
+
+  /** Fourth order Forest-Ruth (Yoshida triple jump of Strang): three FFT pairs per step. */
+  public static final SplittingScheme FOREST_RUTH = tripleJump("Forest-Ruth", STRANG, 4);
+
+  /** Sixth order Yoshida triple jump of Forest-Ruth: nine FFT pairs per step. */
+  public static final SplittingScheme YOSHIDA_6 = tripleJump("Yoshida 6", FOREST_RUTH, 6);
+
+  /** Fourth order Blanes-Moan S6 with optimized error constants: six FFT pairs per step. */
+  public static final SplittingScheme BLANES_MOAN;
+
+  static {
+    double a1 = 0.0792036964311957, a2 = 0.353172906049774, a3 = -0.0420650803577195;
+    double a4 = 1-2*(a1+a2+a3);
+    double b1 = 0.209515106613362, b2 = -0.143851773179818;
+    double b3 = 0.5-(b1+b2);
+    BLANES_MOAN = new SplittingScheme("Blanes-Moan", 4,
+      new double[] {a1, a2, a3, a4, a3, a2, a1},
+      new double[] {b1, b2, b3, b3, b2, b1});
+  }
+
+  final String name;
+  final int order;
+  final double[] a, b;
+
+  public SplittingScheme(String name, int order, double[] a, double[] b){
+    if(a.length!=b.length+1){
+      throw new IllegalArgumentException("A splitting needs one more V coefficient than T coefficients.");
+    }
+    this.name = name;
+    this.order = order;
+    this.a = a.clone();
+    this.b = b.clone();
+  }
+
+  /**
+   * Composes s(w1 dt) s(w0 dt) s(w1 dt) with w1 = 1/(2-2^(1/(order-1))), raising the order of a
+   * symmetric scheme by two. Adjacent V stages are merged.
+   */
+  static SplittingScheme tripleJump(String name, SplittingScheme s, int order){
+    double w1 = 1/(2-Math.pow(2, 1.0/(order-1)));
+    double w0 = 1-2*w1;
+    double[] w = {w1, w0, w1};
+    int m = s.b.length;
+    double[] a = new double[3*m+1];
+    double[] b = new double[3*m];
+    for(int k=0; k<3; k++){
+      for(int i=0; i<m; i++){
+        a[k*m+i] += w[k]*s.a[i];
+        b[k*m+i] = w[k]*s.b[i];
+      }
+      a[k*m+m] += w[k]*s.a[m];
+    }
+    return new SplittingScheme(name, order, a, b);
+  }
+
+  /**
+   * Gets a predefined scheme by name (Strang, Forest-Ruth, Yoshida 6 or Blanes-Moan).
+   */
+  public static SplittingScheme forName(String name){
+    SplittingScheme[] schemes = {STRANG, FOREST_RUTH, YOSHIDA_6, BLANES_MOAN};
+    for(int i=0; i<schemes.length; i++){
+      if(schemes[i].name.equalsIgnoreCase(name.trim())){
+        return schemes[i];
+      }
+    }
+    throw new IllegalArgumentException("Unknown splitting scheme: "+name);
+  }
+
+  public String getName(){
+    return name;
+  }
+
+  public int getOrder(){
+    return order;
+  }
+
+  /** Number of forward/inverse FFT pairs per step. */
+  public int getStages(){
+    return b.length;
+  }
+
+  public String toString(){
+    return name;
+  }
+}
@@ -0,0 +1,246 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.opensourcephysics.display.Dataset;
+
+/**
+ * Expectation values of a SplitOrder wave function, computed every k steps.
+ *
+ * Momentum-space values (&lt;px&gt;, &lt;py&gt;, &lt;T&gt;) are summed over one extra transform of Psi(t) that is
+ * taken only on observed steps; the transformed array inside a step is not used because the trailing V
+ * step changes its phase. Position-space values (norm, &lt;x&gt;, &lt;y&gt;, &lt;V&gt; and the probability in each
+ * region) are summed in one pass over Psi(t). All the values, and E = &lt;T&gt;+&lt;V&gt;, therefore belong to
+ * the same wave function in every mode. dP/dt of a region is the finite difference of its probability
+ * between successive observations, that is the net probability current into the region averaged over
+ * the interval, not the instantaneous flux.
+ */
+public class WaveObservables {
+  public static final int NORM = 0, X = 1, Y = 2, PX = 3, PY = 4, KINETIC = 5, POTENTIAL = 6, ENERGY = 7;
+  static final String[] NAMES = {"norm", "<x>", "<y>", "<px>", "<py>", "<T>", "<V>", "E"};
+
+  /** Receives the values after every observation. */
+  public interface Sink {
+    public void record(double t, double[] values);
+  }
+
+  int interval = 1;
+  ArrayList<double[]> regions = new ArrayList<double[]>();
+  ArrayList<String> regionNames = new ArrayList<String>();
+  ArrayList<Sink> sinks = new ArrayList<Sink>();
+  double[] values = new double[NAMES.length];
+  double[] previous;
+  double previousTime;
+  int[] ix0, ix1, iy0, iy1;  // the grid index bounds of each region
+  double[] p;                // the probability in each region
+  SplitOrder boundsGrid;     // the grid that the bounds belong to
+
+  public WaveObservables(int interval){
+    setInterval(interval);
+  }
+
+  public void setInterval(int interval){
+    this.interval = Math.max(1, interval);
+  }
+
+  public int getInterval(){
+    return interval;
+  }
+
+  /**
+   * Adds a rectangular region whose probability and probability flux are recorded.
+   */
+  public void addRegion(String name, double xmin, double xmax, double ymin, double ymax){
+    regions.add(new double[] {xmin, xmax, ymin, ymax});
+    regionNames.add(name);
+    values = new double[NAMES.length+2*regions.size()];
+    previous = null;
+    boundsGrid = null;
+  }
+
+  public void addSink(Sink sink){
+    sinks.add(sink);
+  }
+
+  /**
+   * Gets the names of the values: the eight expectation values followed by P(region) and the
+   * finite difference dP/dt(region) for each region.
+   */
+  public String[] getNames(){
+    String[] names = new String[values.length];
+    System.arraycopy(NAMES, 0, names, 0, NAMES.length);
+    for(int r=0; r<regions.size(); r++){
+      names[NAMES.length+2*r] = "P("+regionNames.get(r)+")";
+      names[NAMES.length+2*r+1] = "dP/dt("+regionNames.get(r)+")";
+    }
+    return names;
+  }
+
+  /**
+   * Gets the values of the most recent observation.
+   */
+  public double[] getValues(){
+    return values;
+  }
+
+  /**
+   * Momentum-space pass over the transformed (unnormalized) wave function phi.
+   */
+  void momentumPass(SplitOrder so, double[] phi){
+    double sum = 0, px = 0, py = 0, p2 = 0;
+    double[] p_x = so.p_x, p_y = so.p_y;
+    for(int iy=0; iy<so.Ny; iy++){
+      int offset = 2*iy*so.Nx;
+      double ky = p_y[iy];
+      double rowSum = 0, rowPx = 0, rowPx2 = 0;
+      for(int ix=0; ix<so.Nx; ix++){
+        double re = phi[offset+2*ix], im = phi[offset+2*ix+1];
+        double rho = re*re + im*im, kx = p_x[ix];
+        rowSum += rho;
+        rowPx += kx*rho;
+        rowPx2 += kx*kx*rho;
+      }
+      sum += rowSum;
+      px += rowPx;
+      py += ky*rowSum;
+      p2 += rowPx2 + ky*ky*rowSum;
+    }
+    values[PX] = px/sum;
+    values[PY] = py/sum;
+    values[KINETIC] = p2/(2*sum);
+  }
+
+  /**
+   * Position-space pass over Psi; completes the observation and sends it to the sinks.
+   */
+  void positionPass(SplitOrder so, double t){
+    int nr = regions.size();
+    if(so!=boundsGrid){
+      findBounds(so);
+    }
+    Arrays.fill(p, 0);
+    double[] psi = so.Psi, U = so.U;
+    double sum = 0, x = 0, y = 0, v = 0;
+    for(int iy=0; iy<so.Ny; iy++){
+      int offset = 2*iy*so.Nx;
+      double rowSum = 0, rowX = 0, rowV = 0;
+      for(int ix=0; ix<so.Nx; ix++){
+        double re = psi[offset+2*ix], im = psi[offset+2*ix+1];
+        double rho = re*re + im*im;
+        rowSum += rho;
+        rowX += so.x_grid[ix]*rho;
+        rowV += U[iy*so.Nx+ix]*rho;
+      }
+      sum += rowSum;
+      x += rowX;
+      y += so.y_grid[iy]*rowSum;
+      v += rowV;
+      for(int r=0; r<nr; r++){
+        if(iy>=iy0[r] && iy<=iy1[r]){
+          for(int ix=ix0[r]; ix<=ix1[r]; ix++){
+            double re = psi[offset+2*ix], im = psi[offset+2*ix+1];
+            p[r] += re*re + im*im;
+          }
+        }
+      }
+    }
+    double dx = (so.Nx>1) ? Math.abs(so.x_grid[1]-so.x_grid[0]) : 1;
+    double dy = (so.Ny>1) ? Math.abs(so.y_grid[1]-so.y_grid[0]) : 1;
+    values[NORM] = sum*dx*dy;
+    values[X] = x/sum;
+    values[Y] = y/sum;
+    values[POTENTIAL] = v/sum;
+    values[ENERGY] = values[KINETIC]+values[POTENTIAL];
+    for(int r=0; r<nr; r++){
+      int k = NAMES.length+2*r;
+      values[k] = p[r]/sum;
+      values[k+1] = (previous!=null && t>previousTime) ? (values[k]-previous[k])/(t-previousTime) : 0;
+    }
+    if(previous==null){
+      previous = new double[values.length];
+    }
+    System.arraycopy(values, 0, previous, 0, values.length);
+    previousTime = t;
+    for(int i=0; i<sinks.size(); i++){
+      sinks.get(i).record(t, values);
+    }
+  }
+
+  // a region is a block of grid indices
+  void findBounds(SplitOrder so){
+    int nr = regions.size();
+    ix0 = new int[nr];
+    ix1 = new int[nr];
+    iy0 = new int[nr];
+    iy1 = new int[nr];
+    p = new double[nr];
+    for(int r=0; r<nr; r++){
+      double[] b = regions.get(r);
+      ix0[r] = Integer.MAX_VALUE; ix1[r] = -1;
+      iy0[r] = Integer.MAX_VALUE; iy1[r] = -1;
+      for(int ix=0; ix<so.Nx; ix++){
+        if(so.x_grid[ix]>=b[0] && so.x_grid[ix]<=b[1]){
+          ix0[r] = Math.min(ix0[r], ix);
+          ix1[r] = ix;
+        }
+      }
+      for(int iy=0; iy<so.Ny; iy++){
+        if(so.y_grid[iy]>=b[2] && so.y_grid[iy]<=b[3]){
+          iy0[r] = Math.min(iy0[r], iy);
+          iy1[r] = iy;
+        }
+      }
+    }
+    boundsGrid = so;
+  }
+
+  /**
+   * Appends each value to its own Dataset with t on the horizontal axis.
+   */
+  public static Sink datasetSink(final Dataset[] datasets){
+    return new Sink(){
+      public void record(double t, double[] values){
+        for(int i=0, n=Math.min(datasets.length, values.length); i<n; i++){
+          if(datasets[i]!=null){
+            datasets[i].append(t, values[i]);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Writes one tab separated line per observation. Write errors do not interrupt the run; they are
+   * reported by checkError.
+   */
+  public static class FileSink implements Sink, Closeable {
+    final PrintWriter out;
+
+    public FileSink(String fileName, String[] names) throws IOException {
+      out = new PrintWriter(new BufferedWriter(new FileWriter(fileName)));
+      out.print("t");
+      for(int i=0; i<names.length; i++){
+        out.print("\t"+names[i]);
+      }
+      out.println();
+    }
+
+    public void record(double t, double[] values){
+      out.print(t);
+      for(int i=0; i<values.length; i++){
+        out.print("\t"+values[i]);
+      }
+      out.println();
+    }
+
+    public void close(){
+      out.close();
+    }
+
+    /**
+     * Flushes the file and tells whether a write has failed.
+     */
+    public boolean checkError(){
+      return out.checkError();
+    }
+  }
+}
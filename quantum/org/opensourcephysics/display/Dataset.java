@@ -154,6 +154,12 @@ public class Dataset extends AbstractTableModel implements Measurable, LogMeasur
   protected int maxPoints = 16*1024;
   // the maximum number of points that will be saved in a dataset
 
+  private boolean decimated = true;
+  // decimate the line when there are more points than pixel columns
+
+  private DecimatedPath decimatedPath = new DecimatedPath();
+  // the min/max index and the decimated line
+
   protected ArrayList<ErrorBar> errorBars = new ArrayList<ErrorBar>();
   protected Shape customMarker = new Rectangle2D.Double(-markerSize/2, -markerSize/2, markerSize, markerSize);
   
@@ -391,6 +397,31 @@ public class Dataset extends AbstractTableModel implements Measurable, LogMeasur
     this.maxPoints = maxPoints;
   }
 
+  /**
+   * Sets the decimation of connected points.
+   *
+   * A decimated line keeps the first, smallest, largest and last point in every pixel column and draws
+   * nearly the same pixels as the full line. Decimation is used when the x values do not decrease and there
+   * are more points than pixel columns. Decimation is on by default.
+   *
+   * @param decimated true to decimate the line
+   */
+  public void setDecimated(boolean decimated) {
+    this.decimated = decimated;
+    if(!decimated) {
+      decimatedPath.invalidate();
+    }
+  }
+
+  /**
+   * Gets the decimation of connected points.
+   *
+   * @return true if the line is decimated
+   */
+  public boolean isDecimated() {
+    return decimated;
+  }
+
   /**
    * Gets the half-width of the data point marker.
    *
@@ -969,6 +1000,7 @@ public class Dataset extends AbstractTableModel implements Measurable, LogMeasur
     xpoints = new double[initialSize];
     ypoints = new double[initialSize];
     generalPath.reset();
+    decimatedPath.invalidate();
     errorBars.clear();
     resetXYMinMax();
   }
@@ -1122,6 +1154,7 @@ public class Dataset extends AbstractTableModel implements Measurable, LogMeasur
    */
   protected void recalculatePath() {
     generalPath.reset();
+    decimatedPath.invalidate();
     if(index<1) {
       return;
     }
@@ -1182,8 +1215,15 @@ public class Dataset extends AbstractTableModel implements Measurable, LogMeasur
     if(noNumbers) {
       return;
     }
-    AffineTransform at = drawingPanel.getPixelTransform();
-    Shape s = generalPath.createTransformedShape(at);
+    Shape s = null;
+    if(decimated&&(index>drawingPanel.getWidth())&&!drawingPanel.isLogScaleX()&&!drawingPanel.isLogScaleY()) {
+      decimatedPath.update(xpoints, ypoints, index);
+      s = decimatedPath.getPath(drawingPanel); // null if the x values decrease
+    }
+    if(s==null) {
+      AffineTransform at = drawingPanel.getPixelTransform();
+      s = generalPath.createTransformedShape(at);
+    }
     g2.setColor(lineColor);
     g2.draw(s);
   }
@@ -1331,6 +1371,7 @@ public class Dataset extends AbstractTableModel implements Measurable, LogMeasur
    *  Removes infinities and NaN (x only) from the dataset.
    */
   private void removeBadData() {
+    decimatedPath.invalidate();
     for(int i = 0; i<index; i++) {
       if(Double.isNaN(xpoints[i])||Double.isInfinite(xpoints[i])||Double.isInfinite(ypoints[i])) {
         if((index==1)||(i==index-1)) {
@@ -0,0 +1,307 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.display;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+
+/**
+ * DecimatedPath draws a line through a large number of (x,y) points by keeping at most four points in
+ * every pixel column: the first point, the points with the smallest and largest y, and the last point.
+ * The decimated line differs from a line through all the points only where it crosses between columns.
+ *
+ * The x values must not decrease. The index of the smallest and largest y in every block of 16 points,
+ * in every block of 16 blocks, and so on, is kept between draws and is extended as points are appended.
+ * A pixel column is decimated in a time that grows with the logarithm of the number of points it holds,
+ * so the path is rebuilt after a zoom or a pan without visiting the points outside the panel.
+ *
+ * NaN y values are skipped.
+ */
+class DecimatedPath {
+  static final int SHIFT = 4;            // a block holds 16 points or 16 smaller blocks
+  static final int FANOUT = 1<<SHIFT;
+  double[] xpoints, ypoints;             // the indexed arrays
+  int count;                             // the number of indexed points
+  boolean increasing = true;             // the x values of the indexed points do not decrease
+  int levels;                            // the number of block levels
+  int[][] mins = new int[0][];           // the point with the smallest y in every block or -1
+  int[][] maxs = new int[0][];           // the point with the largest y in every block or -1
+  int qmin, qmax;                        // the result of findMinMax
+  int[] order = new int[4];
+  GeneralPath path = new GeneralPath();
+  boolean started;
+  double sx, tx, sy, ty;                 // the pixel transform
+
+  /**
+   * Discards the index. Must be called when indexed points are moved or changed.
+   */
+  void invalidate() {
+    xpoints = ypoints = null;
+    count = 0;
+  }
+
+  /**
+   * Extends the index to the first n points of the arrays.
+   *
+   * The index is rebuilt if the arrays have been replaced.
+   *
+   * @param x the x values
+   * @param y the y values
+   * @param n the number of points
+   */
+  void update(double[] x, double[] y, int n) {
+    if((x!=xpoints)||(y!=ypoints)||(n<count)) {
+      xpoints = x;
+      ypoints = y;
+      count = 0;
+      increasing = true;
+    }
+    if(n==count) {
+      return;
+    }
+    for(int i = Math.max(count, 1); increasing&&(i<n); i++) {
+      if(x[i]<x[i-1]) {
+        increasing = false;
+      }
+    }
+    if(!increasing) {
+      count = n;
+      return;
+    }
+    int first = count, children = n;
+    for(int level = 0; ; level++) {
+      int blocks = (children+FANOUT-1)>>SHIFT;
+      ensureCapacity(level, blocks);
+      int[] min = mins[level], max = maxs[level];
+      for(int b = first>>SHIFT; b<blocks; b++) {
+        int lo = -1, hi = -1;
+        for(int c = b<<SHIFT, end = Math.min(c+FANOUT, children); c<end; c++) {
+          int cmin = c, cmax = c;
+          if(level==0) {
+            if(Double.isNaN(y[c])) {
+              continue;
+            }
+          } else {
+            cmin = mins[level-1][c];
+            cmax = maxs[level-1][c];
+            if(cmin<0) {
+              continue;
+            }
+          }
+          if((lo<0)||(y[cmin]<y[lo])) {
+            lo = cmin;
+          }
+          if((hi<0)||(y[cmax]>y[hi])) {
+            hi = cmax;
+          }
+        }
+        min[b] = lo;
+        max[b] = hi;
+      }
+      if(blocks<=1) {
+        levels = level+1;
+        break;
+      }
+      first >>= SHIFT;
+      children = blocks;
+    }
+    count = n;
+  }
+
+  private void ensureCapacity(int level, int blocks) {
+    if(level>=mins.length) {
+      int[][] temp = new int[level+1][];
+      System.arraycopy(mins, 0, temp, 0, mins.length);
+      temp[level] = new int[0];
+      mins = temp;
+      temp = new int[level+1][];
+      System.arraycopy(maxs, 0, temp, 0, maxs.length);
+      temp[level] = new int[0];
+      maxs = temp;
+    }
+    if(mins[level].length<blocks) {
+      int size = Math.max(blocks, 2*mins[level].length);
+      int[] temp = new int[size];
+      System.arraycopy(mins[level], 0, temp, 0, mins[level].length);
+      mins[level] = temp;
+      temp = new int[size];
+      System.arraycopy(maxs[level], 0, temp, 0, maxs[level].length);
+      maxs[level] = temp;
+    }
+  }
+
+  /**
+   * Gets the decimated path of the indexed points that are visible in the panel.
+   *
+   * @param panel the drawing panel
+   * @return the path in pixel coordinates or null if the points cannot be decimated
+   */
+  GeneralPath getPath(DrawingPanel panel) {
+    AffineTransform at = panel.getPixelTransform();
+    if(!increasing||(count==0)||(at.getShearX()!=0)||(at.getShearY()!=0)||(at.getScaleX()<=0)) {
+      return null;
+    }
+    sx = at.getScaleX();
+    tx = at.getTranslateX();
+    sy = at.getScaleY();
+    ty = at.getTranslateY();
+    double[] x = xpoints;
+    // one point on each side of the panel so that the line leaves the panel
+    int start = Math.max(search(panel.getXMin(), false)-1, 0);
+    int end = Math.min(search(panel.getXMax(), true)+1, count);
+    path.reset();
+    started = false;
+    for(int i = start; i<end; ) {
+      double column = Math.floor(sx*x[i]+tx+0.5); // the pixel that the line rasterizer rounds x to
+      // gallop to the first point of the next column, then bisect
+      int lo = i+1, hi = i+1, step = 1;
+      while((hi<end)&&(Math.floor(sx*x[hi]+tx+0.5)<=column)) {
+        lo = hi+1;
+        step <<= 1;
+        hi = i+step;
+      }
+      hi = Math.min(hi, end);
+      while(lo<hi) {
+        int mid = (lo+hi)>>>1;
+        if(Math.floor(sx*x[mid]+tx+0.5)>column) {
+          hi = mid;
+        } else {
+          lo = mid+1;
+        }
+      }
+      addColumn(i, lo);
+      i = lo;
+    }
+    return path;
+  }
+
+  /**
+   * Finds the first point with an x value greater than or equal to (or greater than) a value.
+   */
+  private int search(double value, boolean after) {
+    int lo = 0, hi = count;
+    while(lo<hi) {
+      int mid = (lo+hi)>>>1;
+      if((xpoints[mid]<value)||(after&&(xpoints[mid]==value))) {
+        lo = mid+1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Adds the points start to end-1 of a pixel column to the path.
+   */
+  private void addColumn(int start, int end) {
+    double[] y = ypoints;
+    if(end-start<=order.length) {
+      for(int i = start; i<end; i++) {
+        if(!Double.isNaN(y[i])) {
+          addPoint(i);
+        }
+      }
+      return;
+    }
+    int first = start, last = end-1;
+    while((first<end)&&Double.isNaN(y[first])) {
+      first++;
+    }
+    if(first==end) {
+      return;
+    }
+    while(Double.isNaN(y[last])) {
+      last--;
+    }
+    findMinMax(start, end);
+    order[0] = first;
+    order[1] = Math.min(qmin, qmax);
+    order[2] = Math.max(qmin, qmax);
+    order[3] = last;
+    addPoint(first);
+    for(int k = 1; k<order.length; k++) {
+      if(order[k]!=order[k-1]) {
+        addPoint(order[k]);
+      }
+    }
+  }
+
+  private void addPoint(int i) {
+    float px = (float) (sx*xpoints[i]+tx), py = (float) (sy*ypoints[i]+ty);
+    if(started) {
+      path.lineTo(px, py);
+    } else {
+      path.moveTo(px, py);
+      started = true;
+    }
+  }
+
+  /**
+   * Finds the points with the smallest and largest y among the points start to end-1 and stores them in
+   * qmin and qmax. Whole blocks are taken from the index.
+   */
+  private void findMinMax(int start, int end) {
+    qmin = qmax = -1;
+    for(int level = -1; start<end; level++) {
+      while((start<end)&&((start&(FANOUT-1))!=0)) {
+        compare(level, start++);
+      }
+      while((start<end)&&((end&(FANOUT-1))!=0)) {
+        compare(level, --end);
+      }
+      start >>= SHIFT;
+      end >>= SHIFT;
+    }
+  }
+
+  private void compare(int level, int i) {
+    int imin = i, imax = i;
+    if(level<0) {
+      if(Double.isNaN(ypoints[i])) {
+        return;
+      }
+    } else {
+      imin = mins[level][i];
+      imax = maxs[level][i];
+      if(imin<0) {
+        return;
+      }
+    }
+    if((qmin<0)||(ypoints[imin]<ypoints[qmin])) {
+      qmin = imin;
+    }
+    if((qmax<0)||(ypoints[imax]>ypoints[qmax])) {
+      qmax = imax;
+    }
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
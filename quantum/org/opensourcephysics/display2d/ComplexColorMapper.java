@@ -16,6 +16,14 @@ import org.opensourcephysics.display.axes.XYAxis;
 public class ComplexColorMapper {
   static final double PI2 = Math.PI*2;
   static final double COLOR_ERR = 1.0E-9;
+  static final int BLACK = 0xFF000000;
+  static final int ATAN_SIZE = 1024;
+  static final double[] ATAN = new double[ATAN_SIZE+2]; // atan(i/ATAN_SIZE) for the phase lookup
+  static {
+    for(int i = 0; i<ATAN.length; i++) {
+      ATAN[i] = Math.atan((double) i/ATAN_SIZE);
+    }
+  }
   private double ceil;
   private Color ceilColor = Color.lightGray;
   private JFrame legendFrame;
@@ -127,13 +135,88 @@ public class ComplexColorMapper {
    * @return byte[]
    */
   public byte[] samplesToComponents(double[] samples, byte[] rgb) {
-    Color color = samplesToColor(samples);
-    rgb[0] = (byte) color.getRed();
-    rgb[1] = (byte) color.getGreen();
-    rgb[2] = (byte) color.getBlue();
+    int color = complexToRGB(samples[0], samples[1], samples[2]);
+    rgb[0] = (byte) (color>>16);
+    rgb[1] = (byte) (color>>8);
+    rgb[2] = (byte) color;
     return rgb;
   }
 
+  /**
+   * Converts an array of samples to a packed ARGB color without creating a Color.
+   * Samples contains magnitude, re, and im.
+   *
+   * @param samples
+   * @return the color as 0xAARRGGBB
+   */
+  public int samplesToRGB(double[] samples) {
+    return complexToRGB(samples[0], samples[1], samples[2]);
+  }
+
+  /**
+   * Converts a magnitude and a complex number to a packed ARGB color without creating a Color.
+   *
+   * The color is the same as the color of samplesToColor.
+   *
+   * @param mag the magnitude that sets the brightness
+   * @param re the real part
+   * @param im the imaginary part
+   * @return the color as 0xAARRGGBB
+   */
+  public int complexToRGB(double mag, double re, double im) {
+    double zval = mag;
+    if(zMap!=null) {
+      zval = zMap.evaluate(zval);
+    }
+    if(zval<=0) {
+      return BLACK;
+    } else if((zMap==null)&&(zval>ceil+COLOR_ERR)) {
+      return ceilColor.getRGB();
+    } else {
+      zval = Math.min(zval, ceil);
+    }
+    float b = (float) (zval/ceil); // brightness
+    int index = phaseIndex(re, im);
+    return BLACK|((int) (b*reds[index])<<16)|((int) (b*greens[index])<<8)|(int) (b*blues[index]);
+  }
+
+  /**
+   * Gets the index of the palette entry for the phase of a complex number.
+   *
+   * The angle is looked up in a table of atan in the first octant and reflected into the other
+   * octants, which is much faster than Math.atan2. Linear interpolation in the table is accurate to
+   * 1e-7, so the index differs from the Math.atan2 index only within 1e-7 of a palette boundary.
+   *
+   * @param re
+   * @param im
+   * @return the index in the range [0,255]
+   */
+  static int phaseIndex(double re, double im) {
+    double ax = Math.abs(re), ay = Math.abs(im);
+    double a; // atan2(|im|,|re|)
+    if(ay<=ax) {
+      if(ax==0) {
+        a = 0;
+      } else {
+        double t = ay/ax*ATAN_SIZE;
+        int k = (int) t;
+        a = ATAN[k]+(t-k)*(ATAN[k+1]-ATAN[k]);
+      }
+    } else {
+      double t = ax/ay*ATAN_SIZE;
+      int k = (int) t;
+      a = Math.PI/2-(ATAN[k]+(t-k)*(ATAN[k+1]-ATAN[k]));
+    }
+    if(re<0) {
+      a = Math.PI-a;
+    }
+    if(im<0) {
+      a = -a;
+    }
+    float h = (float) ((Math.PI+a)/PI2); // hue
+    return(int) (255*h);
+  }
+
   /**
    * Converts a phase angle in the range [-Pi,Pi] to hue, saturation, and brightness.
    *
@@ -155,8 +238,7 @@ public class ComplexColorMapper {
    */
   public Color complexToColor(double re, double im) {
     float b = 1; // brightness
-    float h = (float) ((Math.PI+Math.atan2(im, re))/PI2);
-    int index = ((int) (255*h));
+    int index = phaseIndex(re, im);
     return new Color((int) (b*reds[index]), (int) (b*greens[index]), (int) (b*blues[index]));
   }
 
@@ -178,9 +260,8 @@ public class ComplexColorMapper {
     } else {
       zval = Math.min(zval, ceil);
     }
-    float b = (float) (zval/ceil);                                        // brightness
-    float h = (float) ((Math.PI+Math.atan2(samples[2], samples[1]))/PI2); // hue
-    int index = ((int) (255*h));
+    float b = (float) (zval/ceil); // brightness
+    int index = phaseIndex(samples[1], samples[2]);
     return new Color((int) (b*reds[index]), (int) (b*greens[index]), (int) (b*blues[index]));
   }
 
@@ -203,8 +284,7 @@ public class ComplexColorMapper {
       return ceilColor;
     }
     float b = (float) (zval/ceil);
-    float h = (float) ((Math.PI+Math.atan2(vertex[4], vertex[3]))/PI2);
-    int index = ((int) (255*h));
+    int index = phaseIndex(vertex[3], vertex[4]);
     return new Color((int) (b*reds[index]), (int) (b*greens[index]), (int) (b*blues[index]));
     // return  Color.getHSBColor(h,1,b);
   }
@@ -0,0 +1,506 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.display2d;
+
+/**
+ * ComplexFlatData wraps a flat array of complex numbers for 2d visualizations without copying it.
+ *
+ * The array contains alternating real and imaginary parts in row-major order:
+ * <pre>
+ *    Re(z[ix,iy]) = data[2*(iy*nx + ix)]
+ *    Im(z[ix,iy]) = data[2*(iy*nx + ix) + 1]
+ * </pre>
+ * This is the layout of the FFT2D classes, so a propagator's wave function can be displayed as it is
+ * computed. The array belongs to the caller and is never copied; setData swaps in another array of the
+ * same size.
+ *
+ * The data has three components, like the ArrayData used by Complex2DFrame: 0 is the magnitude,
+ * 1 the real part and 2 the imaginary part. The magnitude is not stored; it is computed from the
+ * real and imaginary parts when it is read, so it is always consistent with the array.
+ */
+public class ComplexFlatData implements GridData {
+  protected double[] data;
+  protected double left, right, bottom, top;
+  protected double dx = 0, dy = 0;
+  protected boolean cellData = false;
+  protected String[] names = {"magnitude", "re", "im"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  int nx, ny;
+
+  /**
+   * ComplexFlatData constructor that allocates an array for ix*iy complex values.
+   *
+   * @param ix  the number of x values
+   * @param iy  the number of y values
+   */
+  public ComplexFlatData(int ix, int iy) {
+    this(new double[2*Math.max(ix, 1)*Math.max(iy, 1)], ix, iy);
+  }
+
+  /**
+   * ComplexFlatData constructor that wraps the given array.
+   *
+   * @param data the interleaved complex values, at least 2*ix*iy values
+   * @param ix  the number of x values
+   * @param iy  the number of y values
+   */
+  public ComplexFlatData(double[] data, int ix, int iy) {
+    if((iy<1)||(ix<1)) {
+      throw new IllegalArgumentException("Number of dataset rows and columns must be positive. Your row="+iy+"  col="+ix); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    nx = ix;
+    ny = iy;
+    setData(data);
+    setScale(0, ix, 0, iy);
+  }
+
+  /**
+   * Replaces the wrapped array without copying it.
+   *
+   * @param data the interleaved complex values, at least 2*nx*ny values
+   */
+  public void setData(double[] data) {
+    if(data.length<2*nx*ny) {
+      throw new IllegalArgumentException("The data array is too small for "+nx+"x"+ny+" data.length="+data.length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+    this.data = data;
+  }
+
+  /**
+   * Sets the name of the component.
+   *
+   * @param i int the component index
+   * @param name String
+   */
+  public void setComponentName(int i, String name) {
+    names[i] = name;
+  }
+
+  /**
+   * Gets the name of the component,
+   * @param i int the component index
+   * @return String the name
+   */
+  public String getComponentName(int i) {
+    return names[i];
+  }
+
+  /**
+   * Gets the number of data components.
+   *
+   * @return int
+   */
+  public int getComponentCount() {
+    return 3;
+  }
+
+  /**
+   * Sets the left, right, bottom, and top of the grid data using a lattice model.
+   * Lattice model XY coordinates are the edges of each cell and NOT the center.
+   *
+   * @param _left
+   * @param _right
+   * @param _bottom
+   * @param _top
+   */
+  public void setScale(double _left, double _right, double _bottom, double _top) {
+    cellData = false;
+    left = _left;
+    right = _right;
+    bottom = _bottom;
+    top = _top;
+    dx = 0; // special case if #col==1
+    if(nx>1) {
+      dx = (right-left)/(nx-1);
+    }
+    dy = 0; // special ase if #row==1
+    if(ny>1) {
+      dy = (bottom-top)/(ny-1); // note that dy is usualy negative
+    }
+    if(dx==0) {
+      left -= 0.5;
+      right += 0.5;
+    }
+    if(dy==0) {
+      bottom -= 0.5;
+      top += 0.5;
+    }
+  }
+
+  /**
+   * Gets the cellData flag.
+   *
+   * @return true if cell data.
+   */
+  public boolean isCellData() {
+    return cellData;
+  }
+
+  /**
+   * Gets the value of the given component at the given location.
+   *
+   * @param ix  x index
+   * @param iy  y index
+   * @param component
+   * @return the value.
+   */
+  public double getValue(int ix, int iy, int component) {
+    if((ix<0)||(ix>=nx)) {
+      throw new IllegalArgumentException("x index out of range in getValue"); //$NON-NLS-1$
+    }
+    if((iy<0)||(iy>=ny)) {
+      throw new IllegalArgumentException("y index out of range in getValue"); //$NON-NLS-1$
+    }
+    return value(2*(iy*nx+ix), component);
+  }
+
+  /**
+   * Sets the value of the given component at the given location.
+   *
+   * Setting the magnitude scales the real and imaginary parts and keeps the phase.
+   *
+   * @param ix  x index
+   * @param iy  y index
+   * @param component
+   * @param value
+   */
+  public void setValue(int ix, int iy, int component, double value) {
+    if((ix<0)||(ix>=nx)) {
+      throw new IllegalArgumentException("x index out of range in setValue"); //$NON-NLS-1$
+    }
+    if((iy<0)||(iy>=ny)) {
+      throw new IllegalArgumentException("y index out of range in setValue"); //$NON-NLS-1$
+    }
+    int i = 2*(iy*nx+ix);
+    if(component>0) {
+      data[i+component-1] = value;
+      return;
+    }
+    double mag = value(i, 0);
+    if(mag==0) {
+      data[i] = value;
+    } else {
+      data[i] *= value/mag;
+      data[i+1] *= value/mag;
+    }
+  }
+
+  // the component of the complex number at data[i], data[i+1]
+  private double value(int i, int component) {
+    switch(component) {
+       case 0 :
+         return Math.sqrt(data[i]*data[i]+data[i+1]*data[i+1]);
+       case 1 :
+         return data[i];
+       case 2 :
+         return data[i+1];
+       default :
+         throw new IllegalArgumentException("Complex data has three components. Your component="+component); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Gets the number of x entries.
+   * @return nx
+   */
+  public int getNx() {
+    return nx;
+  }
+
+  /**
+   * Gets the number of y entries.
+   * @return ny
+   */
+  public int getNy() {
+    return ny;
+  }
+
+  /**
+   * Sets the left, right, bottom, and top of the grid data using a cell model.
+   * Cell model XY coordinates are centered on each cell NOT along the edges.
+   *
+   * @param _left
+   * @param _right
+   * @param _bottom
+   * @param _top
+   */
+  public void setCellScale(double _left, double _right, double _bottom, double _top) {
+    cellData = true;
+    dx = 0; // special case if #col==1
+    if(nx>1) {
+      dx = (_right-_left)/nx;
+    }
+    dy = 0; // special ase if #row==1
+    if(ny>1) {
+      dy = (_bottom-_top)/ny; // note that dy is usualy negative
+    }
+    left = _left+dx/2;
+    right = _right-dx/2;
+    bottom = _bottom-dy/2;
+    top = _top+dy/2;
+  }
+
+  /**
+   * Sets the grid such that the centers of the corner cells match the given coordinates.
+   *
+   * Coordinates are centered on each cell and the bounds are ouside the max and min values.
+   *
+   * @param xmin
+   * @param xmax
+   * @param ymin
+   * @param ymax
+   */
+  public void setCenteredCellScale(double xmin, double xmax, double ymin, double ymax) {
+    double delta = (nx>1) ? (xmax-xmin)/(nx-1)/2 : 0;
+    xmin -= delta;
+    xmax += delta;
+    delta = (ny>1) ? (ymax-ymin)/(ny-1)/2 : 0;
+    ymin -= delta;
+    ymax += delta;
+    setCellScale(xmin, xmax, ymin, ymax);
+  }
+
+  /**
+   * Estimates the value of a component at an untabulated point, (x,y).
+   *
+   * Interpolate uses bilinear interpolation on the grid.  The magnitude is interpolated
+   * between the magnitudes of the corners, as it is for an ArrayData.
+   *
+   * @param x  the untabulated x
+   * @param y  the untabulated y
+   * @param index
+   * @return the interpolated sample
+   */
+  public double interpolate(double x, double y, int index) {
+    int ix = (int) ((x-left)/dx);
+    ix = Math.max(0, ix);
+    ix = Math.min(nx-2, ix);
+    int iy = -(int) ((top-y)/dy);
+    iy = Math.max(0, iy);
+    iy = Math.min(ny-2, iy);
+    int rowspan = 2*nx;
+    if((ix<0)&&(iy<0)) {
+      return value(0, index);
+    } else if(ix<0) {
+      double u = -(top-y)/dy-iy;
+      int i = iy*rowspan;
+      return(1-u)*value(i, index)+u*value(i+rowspan, index);
+    } else if(iy<0) {
+      double t = (x-left)/dx-ix;
+      int i = 2*ix;
+      return(1-t)*value(i, index)+t*value(i+2, index);
+    }
+    double t = (x-left)/dx-ix;
+    double u = -(top-y)/dy-iy;
+    int i = iy*rowspan+2*ix;
+    return(1-t)*(1-u)*value(i, index)+t*(1-u)*value(i+2, index)+t*u*value(i+rowspan+2, index)+(1-t)*u*value(i+rowspan, index);
+  }
+
+  /**
+   * Estimates multiple sample components at an untabulated point, (x,y).
+   *
+   * Interpolate uses bilinear interpolation on the grid.
+   *
+   * @param x  untabulated x
+   * @param y  untabulated y
+   * @param indexes to be interpolated
+   * @param values array will contain the interpolated values
+   * @return the interpolated array
+   */
+  public double[] interpolate(double x, double y, int[] indexes, double[] values) {
+    for(int i = 0, n = indexes.length; i<n; i++) {
+      values[i] = interpolate(x, y, indexes[i]);
+    }
+    return values;
+  }
+
+  /**
+   * Gets the wrapped array, as data[0][0], without copying it.
+   *
+   * @return the data
+   */
+  public double[][][] getData() {
+    return new double[][][] {{data}};
+  }
+
+  /**
+   * Gets the wrapped array of interleaved complex values.
+   *
+   * @return the array
+   */
+  public double[] getFlatData() {
+    return data;
+  }
+
+  /**
+   * Gets the minimum and maximum values of the n-th component.
+   *
+   * @param n the component
+   * @return {zmin,zmax}
+   */
+  public double[] getZRange(int n) {
+    int size = 2*nx*ny;
+    if(n==0) { // compare squared magnitudes and take two square roots
+      double min = Double.MAX_VALUE, max = 0;
+      for(int i = 0; i<size; i += 2) {
+        double m2 = data[i]*data[i]+data[i+1]*data[i+1];
+        if(m2>max) {
+          max = m2;
+        }
+        if(m2<min) {
+          min = m2;
+        }
+      }
+      return new double[] {Math.sqrt(min), Math.sqrt(max)};
+    }
+    int offset = n-1;
+    if((offset<0)||(offset>1)) {
+      throw new IllegalArgumentException("Complex data has three components. Your component="+n); //$NON-NLS-1$
+    }
+    double zmin = data[offset];
+    double zmax = zmin;
+    for(int i = offset; i<size; i += 2) {
+      double v = data[i];
+      if(v>zmax) {
+        zmax = v;
+      }
+      if(v<zmin) {
+        zmin = v;
+      }
+    }
+    return new double[] {zmin, zmax};
+  }
+
+  /**
+   * Gets the x value for the first column in the grid.
+   * @return  the leftmost x value
+   */
+  public final double getLeft() {
+    return left;
+  }
+
+  /**
+   * Gets the x value for the right column in the grid.
+   * @return  the rightmost x value
+   */
+  public final double getRight() {
+    return right;
+  }
+
+  /**
+   * Gets the y value for the first row of the grid.
+   * @return  the topmost y value
+   */
+  public final double getTop() {
+    return top;
+  }
+
+  /**
+   * Gets the y value for the last row of the grid.
+   * @return the bottommost y value
+   */
+  public final double getBottom() {
+    return bottom;
+  }
+
+  /**
+   * Gets the change in x between grid columns.
+   * @return the bottommost y value
+   */
+  public final double getDx() {
+    return dx;
+  }
+
+  /**
+   * Gets the change in y between grid rows.
+   * @return the bottommost y value
+   */
+  public final double getDy() {
+    return dy;
+  }
+
+  /**
+   * Gets the x coordinate for the given index.
+   *
+   * @param i int
+   * @return double the x coordinate
+   */
+  public double indexToX(int i) {
+    return left+dx*i;
+  }
+
+  /**
+   * Gets the y coordinate for the given index.
+   *
+   * @param i int
+   * @return double the y coordinate
+   */
+  public double indexToY(int i) {
+    return top+dy*i;
+  }
+
+  /**
+   * Gets closest index from the given x  world coordinate.
+   *
+   * @param x double the coordinate
+   * @return int the index
+   */
+  public int xToIndex(double x) {
+    double dx = (right-left)/nx;
+    int i = (int) ((x-left)/dx);
+    if(i<0) {
+      return 0;
+    }
+    if(i>=nx) {
+      return nx-1;
+    }
+    return i;
+  }
+
+  /**
+   * Gets closest index from the given y  world coordinate.
+   *
+   * @param y double the coordinate
+   * @return int the index
+   */
+  public int yToIndex(double y) {
+    double dy = (top-bottom)/ny;
+    int i = (int) ((top-y)/dy);
+    if(i<0) {
+      return 0;
+    }
+    if(i>=ny) {
+      return ny-1;
+    }
+    return i;
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -9,6 +9,8 @@ package org.opensourcephysics.display2d;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JFrame;
 import org.opensourcephysics.controls.XML;
 import org.opensourcephysics.controls.XMLControl;
@@ -34,6 +36,7 @@ public class ComplexGridPlot extends MeasuredImage implements Plot2D {
   private int ampIndex = 0; // amplitude index
   private int reIndex = 1;  // real index
   private int imIndex = 2;  // imaginary index
+  ForkJoinPool pool = ForkJoinPool.commonPool(); // null recolors on the calling thread
 
   /**
    * Constructs the ComplexGridPlot without data.
@@ -164,8 +167,8 @@ public class ComplexGridPlot extends MeasuredImage implements Plot2D {
     griddata = _griddata;
     int nx = griddata.getNx();
     int ny = griddata.getNy();
-    rgbData = new int[nx*ny];
     image = new BufferedImage(nx, ny, BufferedImage.TYPE_INT_ARGB);
+    rgbData = ((DataBufferInt) image.getRaster().getDataBuffer()).getData(); // pixels are written into the raster
     Grid newgrid = new Grid(nx, ny);
     if(grid!=null) {
       newgrid.setColor(grid.getColor());
@@ -294,8 +297,46 @@ public class ComplexGridPlot extends MeasuredImage implements Plot2D {
     }
   }
 
+  /**
+   * Sets the pool used to recolor bands of image rows in parallel.
+   *
+   * @param pool the ForkJoinPool or null to recolor on the calling thread
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Gets the pool used to recolor bands of image rows in parallel.
+   *
+   * @return the ForkJoinPool or null if the image is recolored on the calling thread
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  /**
+   * Enables or disables parallel recoloring using the common ForkJoinPool.
+   *
+   * @param parallel true to split the image into bands of rows
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Gets the parallel flag.
+   *
+   * @return true if the image is split into bands of rows
+   */
+  public boolean isParallel() {
+    return pool!=null;
+  }
+
   /**
    * Recolors the image pixels using the data array.
+   *
+   * Bands of rows are recolored in parallel when a thread pool is set.
    */
   protected void recolorImage() {
     if(griddata==null) {
@@ -315,35 +356,50 @@ public class ComplexGridPlot extends MeasuredImage implements Plot2D {
       ymax = griddata.getTop();
     }
     grid.setMinMax(xmin, xmax, ymin, ymax);
-    double[][][] data = griddata.getData();
-    int nx = griddata.getNx();
-    int ny = griddata.getNy();
-    double[] samples = new double[3];
-    if(griddata instanceof GridPointData) {
-      int ampIndex = this.ampIndex+2;
-      int reIndex = this.reIndex+2;
-      int imIndex = this.imIndex+2;
-      for(int iy = 0, count = 0; iy<ny; iy++) {
-        for(int ix = 0; ix<nx; ix++) {
-          samples[0] = data[ix][iy][ampIndex];
-          samples[1] = data[ix][iy][reIndex];
-          samples[2] = data[ix][iy][imIndex];
-          rgbData[count] = colorMap.samplesToColor(samples).getRGB();
-          count++;
-        }
-      }
-    } else if(griddata instanceof ArrayData) {
-      for(int iy = 0, count = 0; iy<ny; iy++) {
-        for(int ix = 0; ix<nx; ix++) {
-          samples[0] = data[ampIndex][ix][iy];
-          samples[1] = data[reIndex][ix][iy];
-          samples[2] = data[imIndex][ix][iy];
-          rgbData[count] = colorMap.samplesToColor(samples).getRGB();
-          count++;
+    final GridData griddata = this.griddata;
+    final double[][][] data = griddata.getData();
+    final int nx = griddata.getNx();
+    final int ny = griddata.getNy();
+    final int[] rgbData = this.rgbData;
+    final ComplexColorMapper colorMap = this.colorMap;
+    final int ampIndex = this.ampIndex, reIndex = this.reIndex, imIndex = this.imIndex;
+    RowBands.recolor(pool, nx, ny, new RowBands.Rows() {
+      public void recolor(int start, int end) {
+        double[] samples = new double[3];
+        if(griddata instanceof GridPointData) {
+          for(int iy = start, count = start*nx; iy<end; iy++) {
+            for(int ix = 0; ix<nx; ix++) {
+              samples[0] = data[ix][iy][ampIndex+2];
+              samples[1] = data[ix][iy][reIndex+2];
+              samples[2] = data[ix][iy][imIndex+2];
+              rgbData[count] = colorMap.samplesToRGB(samples);
+              count++;
+            }
+          }
+        } else if(griddata instanceof ArrayData) {
+          for(int iy = start, count = start*nx; iy<end; iy++) {
+            for(int ix = 0; ix<nx; ix++) {
+              samples[0] = data[ampIndex][ix][iy];
+              samples[1] = data[reIndex][ix][iy];
+              samples[2] = data[imIndex][ix][iy];
+              rgbData[count] = colorMap.samplesToRGB(samples);
+              count++;
+            }
+          }
+        } else if(griddata instanceof ComplexFlatData) {
+          double[] flat = ((ComplexFlatData) griddata).getFlatData();
+          double[] components = samples; // magnitude, re, im
+          for(int count = start*nx, n = end*nx, i = 2*count; count<n; i += 2, count++) {
+            double re = flat[i], im = flat[i+1];
+            components[0] = Math.sqrt(re*re+im*im);
+            components[1] = re;
+            components[2] = im;
+            rgbData[count] = colorMap.complexToRGB(components[ampIndex], components[reIndex], components[imIndex]);
+          }
         }
       }
-    }
-    image.setRGB(0, 0, nx, ny, rgbData, 0, nx);
+
+    });
   }
 
   /**
@@ -18,6 +18,7 @@ import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JFrame;
 import org.opensourcephysics.controls.OSPLog;
 import org.opensourcephysics.controls.XML;
@@ -47,6 +48,7 @@ public class ComplexInterpolatedPlot extends MeasuredImage implements Plot2D {
   int leftPix, rightPix, topPix, bottomPix;
   int ixsize, iysize;
   double top, left, bottom, right;
+  ForkJoinPool pool = ForkJoinPool.commonPool(); // null recolors on the calling thread
 
   /**
    * Constructs the ComplexInterpolatedPlot using the given 2d datset.
@@ -394,13 +396,51 @@ public class ComplexInterpolatedPlot extends MeasuredImage implements Plot2D {
     update();
   }
 
+  /**
+   * Sets the pool used to recolor bands of image rows in parallel.
+   *
+   * @param pool the ForkJoinPool or null to recolor on the calling thread
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Gets the pool used to recolor bands of image rows in parallel.
+   *
+   * @return the ForkJoinPool or null if the image is recolored on the calling thread
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  /**
+   * Enables or disables parallel recoloring using the common ForkJoinPool.
+   *
+   * @param parallel true to split the image into bands of rows
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Gets the parallel flag.
+   *
+   * @return true if the image is split into bands of rows
+   */
+  public boolean isParallel() {
+    return pool!=null;
+  }
+
   /**
    * Recolors the image pixels using the data array.
+   *
+   * Bands of rows are recolored in parallel when a thread pool is set.
    */
   protected void recolorImage() {
     // use references for thread safety
     GridData griddata = this.griddata;
-    byte[][] rgbData = this.rgbData;
+    final byte[][] rgbData = this.rgbData;
     BufferedImage image = this.image;
     if(griddata==null) {
       return;
@@ -425,31 +465,36 @@ public class ComplexInterpolatedPlot extends MeasuredImage implements Plot2D {
     if(rgbData[0].length!=image.getWidth()*image.getHeight()) {
       return;
     }
-    byte[] rgb = new byte[3];
-    double y = top;
-    int iw = image.getWidth();
-    double dx = (xmax-xmin)/(ixsize-1);
-    double dy = (ymin-ymax)/(iysize-1);
+    double dxPix = (xmax-xmin)/(ixsize-1);
+    double dyPix = (ymin-ymax)/(iysize-1);
     if(griddata.getDx()<0) {
-      dx = -dx;
+      dxPix = -dxPix;
     }
     if(griddata.getDy()>0) {
-      dy = -dy;
+      dyPix = -dyPix;
     }
-    double[] samples = new double[3];
-    int[] indexes = new int[] {ampIndex, reIndex, imIndex};
-    for(int j = 0, jh = image.getHeight(); j<jh; j++) {
-      double x = left;
-      for(int i = 0; i<iw; i++) {
-        colorMap.samplesToComponents(griddata.interpolate(x, y, indexes, samples), rgb);
-        int index = (dy<0) ? j*iw+i : (jh-j-1)*iw+i;
-        rgbData[0][index] = rgb[0]; // red
-        rgbData[1][index] = rgb[1]; // green
-        rgbData[2][index] = rgb[2]; // blue
-        x += dx;
+    final GridData data = griddata;
+    final ComplexColorMapper colorMap = this.colorMap;
+    final int iw = image.getWidth(), jh = image.getHeight();
+    final int[] indexes = new int[] {ampIndex, reIndex, imIndex};
+    final double dx = dxPix, dy = dyPix, left = this.left, top = this.top;
+    RowBands.recolor(pool, iw, jh, new RowBands.Rows() {
+      public void recolor(int start, int end) {
+        double[] samples = new double[3];
+        for(int j = start; j<end; j++) {
+          double x = left, y = top+j*dy;
+          int index = (dy<0) ? j*iw : (jh-j-1)*iw;
+          for(int i = 0; i<iw; i++, index++) {
+            int rgb = colorMap.samplesToRGB(data.interpolate(x, y, indexes, samples));
+            rgbData[0][index] = (byte) (rgb>>16); // red
+            rgbData[1][index] = (byte) (rgb>>8);  // green
+            rgbData[2][index] = (byte) rgb;       // blue
+            x += dx;
+          }
+        }
       }
-      y += dy;
-    }
+
+    });
   }
 
   /**
@@ -255,6 +255,34 @@ public class ComplexSurfacePlot implements Plot2D, False3D {
     ampdata = null;
   }
 
+  private void generateVerticesFromValues(GridData griddata) {
+    int numRows = griddata.getNx();
+    int numCols = griddata.getNy();
+    calc_divisions = numRows-1;
+    double xfactor = 20/(xmax-xmin);
+    double yfactor = 20/(ymax-ymin);
+    if((vertexArray==null)||(vertexArray.length!=numRows*numCols)) {
+      vertexArray = new ComplexSurfaceVertex[numRows*numCols];
+    }
+    double dx = Math.abs(griddata.getDx());
+    double dy = Math.abs(griddata.getDy());
+    double x = xmin; // left;
+    for(int ix = 0; ix<numCols; ix++) {
+      double y = ymin; // bottom;
+      for(int iy = 0; iy<numRows; iy++) {
+        int iyd = (griddata.getDy()>0) ? iy : numCols-iy-1;
+        int ixd = (griddata.getDx()>0) ? ix : numCols-ix-1;
+        double zval = griddata.getValue(ixd, iyd, ampIndex);
+        if(zMap!=null) {
+          zval = zMap.evaluate(zval);
+        }
+        vertexArray[ix*numRows+iy] = new ComplexSurfaceVertex(-10+(x-xmin)*xfactor, -10+(y-ymin)*yfactor, zval, griddata.getValue(ixd, iyd, reIndex), griddata.getValue(ixd, iyd, imIndex), this);
+        y += dy;
+      }
+      x += dx;
+    }
+  }
+
   private void generateVerticesFromPoints(GridPointData griddata) throws IllegalArgumentException {
     double[][][] data = griddata.getData();
     int numRows = data.length;
@@ -1212,6 +1240,8 @@ public class ComplexSurfacePlot implements Plot2D, False3D {
       generateVerticesFromArray((ArrayData) griddata);
     } else if(griddata instanceof GridPointData) {
       generateVerticesFromPoints((GridPointData) griddata);
+    } else if(griddata instanceof ComplexFlatData) {
+      generateVerticesFromValues(griddata);
     }
   }
 
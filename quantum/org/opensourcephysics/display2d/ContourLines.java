@@ -0,0 +1,414 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.display2d;
+import java.awt.geom.GeneralPath;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ContourLines computes the contour lines of a grid of values with the marching squares algorithm
+ * and keeps the result between updates.
+ *
+ * Every node is classified by its band, the number of levels that are less than or equal to its value,
+ * so a cell crosses level k if the bands of its corners straddle k. The bands, the band range of every
+ * cell, and the line segments of every crossing cell are cached. An update with the same levels only
+ * reclassifies the nodes whose values changed and the cells that have a changed corner. The list of
+ * crossing cells of each level is merged with the changed cells, so the segments of the other cells are
+ * copied without visiting the rest of the grid. Changing the levels, or more than half of the values,
+ * recomputes everything.
+ *
+ * The levels are divided into groups that are computed by the threads of a ForkJoinPool. Each level
+ * has a GeneralPath in world coordinates that is reused by every update.
+ *
+ * Values are stored as values[ix][iy], like the internal data of ContourPlot, and node (ix,iy) is at
+ * (x0+ix*dx, y0+iy*dy).
+ */
+public class ContourLines {
+  // the edges crossed by the contour in each marching squares case
+  // edge 0: (ix,iy)-(ix+1,iy), 1: (ix+1,iy)-(ix+1,iy+1), 2: (ix+1,iy+1)-(ix,iy+1), 3: (ix,iy+1)-(ix,iy)
+  static final int[][] EDGES = {{}, {3, 0}, {0, 1}, {3, 1}, {1, 2}, {3, 0, 1, 2}, {0, 2}, {3, 2}, {2, 3}, {0, 2}, {0, 1, 2, 3}, {1, 2}, {1, 3}, {0, 1}, {0, 3}, {}};
+  static final int[] CORNER_X = {0, 1, 1, 0}, CORNER_Y = {0, 0, 1, 1};
+  int nx, ny;
+  double x0, dx, y0, dy;
+  double[] levels = new double[0];
+  double[] values;    // node values, index ix*ny+iy
+  int[] band;         // number of levels <= value at each node
+  int[] changedNodes = new int[0], dirtyCells = new int[0];
+  int nchanged, ndirty;
+  int[] cellMin, cellMax; // each cell crosses the levels cellMin to cellMax-1
+  Level[] lines = new Level[0];
+  ForkJoinPool pool = ForkJoinPool.commonPool(); // null computes the levels on the calling thread
+  int recomputed;     // number of cell segments computed in the last update
+
+  /**
+   * Updates the contour lines.
+   *
+   * @param data the values, data[ix][iy]
+   * @param levels the contour levels in increasing order
+   * @param x0 the x coordinate of data[0][*]
+   * @param dx the change in x between columns
+   * @param y0 the y coordinate of data[*][0]
+   * @param dy the change in y between rows
+   */
+  public synchronized void update(double[][] data, double[] levels, double x0, double dx, double y0, double dy) {
+    int nx = data.length, ny = data[0].length;
+    boolean full = (values==null)||(nx!=this.nx)||(ny!=this.ny)||!Arrays.equals(levels, this.levels)
+                   ||(x0!=this.x0)||(dx!=this.dx)||(y0!=this.y0)||(dy!=this.dy);
+    if(full) {
+      this.nx = nx;
+      this.ny = ny;
+      this.x0 = x0;
+      this.dx = dx;
+      this.y0 = y0;
+      this.dy = dy;
+      this.levels = levels.clone();
+      if((values==null)||(values.length!=nx*ny)) {
+        values = new double[nx*ny];
+        band = new int[nx*ny];
+      }
+      int ncells = Math.max(0, (nx-1)*(ny-1));
+      if((cellMin==null)||(cellMin.length!=ncells)) {
+        cellMin = new int[ncells];
+        cellMax = new int[ncells];
+      }
+      if(lines.length!=levels.length) {
+        lines = new Level[levels.length];
+        for(int k = 0; k<lines.length; k++) {
+          lines[k] = new Level();
+        }
+      }
+    }
+    nchanged = 0;
+    for(int ix = 0, n = 0; ix<nx; ix++) { // classify the nodes
+      double[] column = data[ix];
+      for(int iy = 0; iy<ny; iy++, n++) {
+        double v = column[iy];
+        if(!full&&((v==values[n])||((v!=v)&&(values[n]!=values[n])))) {
+          continue;
+        }
+        values[n] = v;
+        band[n] = band(v);
+        if(!full) {
+          if(nchanged==changedNodes.length) {
+            changedNodes = Arrays.copyOf(changedNodes, Math.max(16, 2*nchanged));
+          }
+          changedNodes[nchanged++] = n;
+        }
+      }
+    }
+    full = full||(2*nchanged>nx*ny);
+    if(full) {
+      for(int c = 0, ncells = cellMin.length; c<ncells; c++) {
+        classifyCell(c);
+      }
+    } else {
+      findDirtyCells();
+    }
+    int ngroups = (pool==null) ? 1 : Math.min(pool.getParallelism(), lines.length);
+    recomputed = 0;
+    if(ngroups<=1) {
+      recomputed = computeLevels(0, lines.length, full);
+    } else {
+      final LevelGroup[] groups = new LevelGroup[ngroups];
+      for(int k = 0; k<ngroups; k++) {
+        groups[k] = new LevelGroup(k*lines.length/ngroups, (k+1)*lines.length/ngroups, full);
+      }
+      pool.invoke(new RecursiveAction() {
+        protected void compute() {
+          invokeAll(groups);
+        }
+
+      });
+      for(int k = 0; k<ngroups; k++) {
+        recomputed += groups[k].recomputed;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of levels.
+   *
+   * @return int
+   */
+  public int getLevelCount() {
+    return lines.length;
+  }
+
+  /**
+   * Gets the contour path of the given level in world coordinates.
+   *
+   * The path is reused and is reset by the next update.
+   *
+   * @param k the level index
+   * @return the path
+   */
+  public GeneralPath getPath(int k) {
+    return lines[k].path;
+  }
+
+  /**
+   * Gets the number of cell segments that were computed, rather than copied, by the last update.
+   *
+   * @return int
+   */
+  public int getRecomputedCount() {
+    return recomputed;
+  }
+
+  /**
+   * Sets the pool used to compute groups of levels in parallel.
+   *
+   * @param pool the ForkJoinPool or null to compute the levels on the calling thread
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Gets the pool used to compute groups of levels in parallel.
+   *
+   * @return the ForkJoinPool or null
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  // collects the cells that have a changed corner, in increasing order, and classifies them
+  void findDirtyCells() {
+    if(dirtyCells.length<4*nchanged) {
+      dirtyCells = new int[4*nchanged];
+    }
+    int count = 0;
+    for(int i = 0; i<nchanged; i++) {
+      int n = changedNodes[i], ix = n/ny, iy = n%ny;
+      for(int cx = Math.max(ix-1, 0), mx = Math.min(ix, nx-2); cx<=mx; cx++) {
+        for(int cy = Math.max(iy-1, 0), my = Math.min(iy, ny-2); cy<=my; cy++) {
+          dirtyCells[count++] = cx*(ny-1)+cy;
+        }
+      }
+    }
+    Arrays.sort(dirtyCells, 0, count);
+    ndirty = 0;
+    for(int i = 0; i<count; i++) {
+      if((ndirty==0)||(dirtyCells[i]!=dirtyCells[ndirty-1])) {
+        dirtyCells[ndirty++] = dirtyCells[i];
+        classifyCell(dirtyCells[i]);
+      }
+    }
+  }
+
+  // sets the range of levels crossed by cell c
+  void classifyCell(int c) {
+    int n = (c/(ny-1))*ny+c%(ny-1);
+    int b0 = band[n], b1 = band[n+ny], b2 = band[n+ny+1], b3 = band[n+1];
+    cellMin[c] = Math.min(Math.min(b0, b1), Math.min(b2, b3));
+    cellMax[c] = Math.max(Math.max(b0, b1), Math.max(b2, b3));
+  }
+
+  // the number of levels <= v
+  int band(double v) {
+    int lo = 0, hi = levels.length;
+    while(lo<hi) {
+      int mid = (lo+hi)>>>1;
+      if(levels[mid]<=v) {
+        lo = mid+1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Computes levels start to end-1, in one pass over the cells or by merging the dirty cells.
+   *
+   * @return the number of cells whose segments were computed
+   */
+  int computeLevels(int start, int end, boolean full) {
+    int count = 0;
+    for(int k = start; k<end; k++) {
+      lines[k].begin();
+    }
+    if(full) {
+      for(int ix = 0, c = 0; ix<nx-1; ix++) {
+        for(int iy = 0; iy<ny-1; iy++, c++) {
+          for(int k = Math.max(cellMin[c], start), kmax = Math.min(cellMax[c], end); k<kmax; k++) {
+            lines[k].add(c, k);
+            count++;
+          }
+        }
+      }
+    } else {
+      for(int k = start; k<end; k++) {
+        count += lines[k].merge(k);
+      }
+    }
+    for(int k = start; k<end; k++) {
+      lines[k].finish();
+    }
+    return count;
+  }
+
+  class LevelGroup extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final int start, end;
+    final boolean full;
+    int recomputed;
+
+    LevelGroup(int start, int end, boolean full) {
+      this.start = start;
+      this.end = end;
+      this.full = full;
+    }
+
+    protected void compute() {
+      recomputed = computeLevels(start, end, full);
+    }
+
+  }
+
+  /**
+   * The crossing cells of one level and their segments, sorted by cell index.
+   * The previous update is kept in the old arrays so unchanged cells can be copied.
+   */
+  class Level {
+    GeneralPath path = new GeneralPath();
+    int[] cells = new int[16], oldCells = new int[16];
+    float[] segments = new float[16*8], oldSegments = new float[16*8]; // two segments of four coordinates per cell
+    byte[] nsegments = new byte[16], oldNsegments = new byte[16];
+    int[] corners = new int[4];
+    int n, oldn;
+
+    void begin() {
+      int[] ti = oldCells;
+      oldCells = cells;
+      cells = ti;
+      float[] tf = oldSegments;
+      oldSegments = segments;
+      segments = tf;
+      byte[] tb = oldNsegments;
+      oldNsegments = nsegments;
+      nsegments = tb;
+      oldn = n;
+      n = 0;
+    }
+
+    // merges the previous cells with the dirty cells that cross level k
+    int merge(int k) {
+      int count = 0;
+      for(int i = 0, d = 0; (i<oldn)||(d<ndirty); ) {
+        int oldCell = (i<oldn) ? oldCells[i] : Integer.MAX_VALUE;
+        int dirtyCell = (d<ndirty) ? dirtyCells[d] : Integer.MAX_VALUE;
+        if(oldCell<dirtyCell) { // unchanged cell
+          ensureCapacity();
+          cells[n] = oldCell;
+          nsegments[n] = oldNsegments[i];
+          System.arraycopy(oldSegments, 8*i, segments, 8*n, 8);
+          n++;
+          i++;
+          continue;
+        }
+        if(oldCell==dirtyCell) {
+          i++;
+        }
+        if((cellMin[dirtyCell]<=k)&&(k<cellMax[dirtyCell])) {
+          add(dirtyCell, k);
+          count++;
+        }
+        d++;
+      }
+      return count;
+    }
+
+    void ensureCapacity() {
+      if(n<cells.length) {
+        return;
+      }
+      int size = 2*cells.length;
+      cells = Arrays.copyOf(cells, size);
+      segments = Arrays.copyOf(segments, 8*size);
+      nsegments = Arrays.copyOf(nsegments, size);
+    }
+
+    // computes the segments of cell c for level k
+    void add(int c, int k) {
+      int ix = c/(ny-1), iy = c%(ny-1), node = ix*ny+iy;
+      corners[0] = node;
+      corners[1] = node+ny;
+      corners[2] = node+ny+1;
+      corners[3] = node+1;
+      int index = 0;
+      for(int i = 0; i<4; i++) {
+        if(band[corners[i]]>k) {
+          index |= 1<<i;
+        }
+      }
+      int[] edges = EDGES[index];
+      double level = levels[k];
+      if((index==5)||(index==10)) { // saddle: decide with the value at the center
+        double center = (values[corners[0]]+values[corners[1]]+values[corners[2]]+values[corners[3]])/4;
+        boolean above = center>=level;
+        if((index==5)==above) {
+          edges = EDGES[10];
+        } else {
+          edges = EDGES[5];
+        }
+      }
+      ensureCapacity();
+      cells[n] = c;
+      nsegments[n] = (byte) (edges.length/2);
+      for(int s = 0; s<edges.length; s++) {
+        int e = edges[s];
+        int e2 = (e+1)&3, a = corners[e], b = corners[e2];
+        double t = (level-values[a])/(values[b]-values[a]);
+        double xa = x0+(ix+CORNER_X[e])*dx, ya = y0+(iy+CORNER_Y[e])*dy;
+        double xb = x0+(ix+CORNER_X[e2])*dx, yb = y0+(iy+CORNER_Y[e2])*dy;
+        segments[8*n+2*s] = (float) (xa+t*(xb-xa));
+        segments[8*n+2*s+1] = (float) (ya+t*(yb-ya));
+      }
+      n++;
+    }
+
+    void finish() {
+      path.reset();
+      for(int i = 0; i<n; i++) {
+        for(int s = 0, offset = 8*i; s<nsegments[i]; s++, offset += 4) {
+          path.moveTo(segments[offset], segments[offset+1]);
+          path.lineTo(segments[offset+2], segments[offset+3]);
+        }
+      }
+    }
+
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -8,6 +8,8 @@
 package org.opensourcephysics.display2d;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
 import javax.swing.JFrame;
 import org.opensourcephysics.controls.XML;
 import org.opensourcephysics.controls.XMLControl;
@@ -16,6 +18,9 @@ import org.opensourcephysics.display.DrawingPanel;
 /**
  * ContourPlot draws a contour plot of a scalar field.
  *
+ * The contour lines are computed by a ContourLines engine that keeps the lines between updates, so
+ * only the cells whose values changed are recomputed when the levels do not change.
+ *
  * Contour uses code from the Surface Plotter package by Yanto Suryono.
  *
  * @author       Wolfgang Christian
@@ -36,7 +41,8 @@ public class ContourPlot implements Plot2D {
   private double[] delta = new double[4];
   private double[] intersection = new double[4];
   private double[][] contour_vertex = new double[4][3];
-  private ContourAccumulator accumulator = new ContourAccumulator();
+  private ContourLines contourLines = new ContourLines();
+  private boolean linesValid = false;             // the contour lines match the data and the levels
   private double zmin = 0, zmax = 1.0;            // the range for contour levels
   private boolean autoscaleZ = true;
   private boolean symmetricZ=false;
@@ -182,6 +188,7 @@ public class ContourPlot implements Plot2D {
     nx = (interpolateLargeGrids&&(griddata.getNx()>maxGridSize)) ? 32 : griddata.getNx();
     ny = (interpolateLargeGrids&&(griddata.getNy()>maxGridSize)) ? 32 : griddata.getNy();
     internalData = new double[nx][ny];
+    linesValid = false;
   }
 
   /**
@@ -237,7 +244,6 @@ public class ContourPlot implements Plot2D {
       int h = panel.getHeight()-panel.getTopGutter()-panel.getBottomGutter();
       g.fillRect(panel.getLeftGutter(), panel.getTopGutter(), Math.max(w, 0), Math.max(h, 0));
     }
-    accumulator.clearAccumulator();
     contour_stepz = (zmax-zmin)/(contour_lines+1);
     double z = zmin;
     for(int c = 0; c<contourColors.length; c++) {
@@ -250,7 +256,8 @@ public class ContourPlot implements Plot2D {
     }
     double x = griddata.getLeft(), dx = (griddata.getRight()-griddata.getLeft())/(nx-1);
     double y = griddata.getTop(), dy = -(griddata.getTop()-griddata.getBottom())/(ny-1);
-    for(int i = 0, mx = internalData.length-1; i<mx; i++) {
+    boolean fill = showColoredLevels&&(colorMap.getPaletteType()!=ColorMapper.WIREFRAME);
+    for(int i = 0, mx = fill ? internalData.length-1 : 0; i<mx; i++) {
       y = griddata.getTop();
       for(int j = 0, my = internalData[0].length-1; j<my; j++) {
         contour_vertex[0][0] = x;
@@ -271,8 +278,19 @@ public class ContourPlot implements Plot2D {
       x += dx;
     }
     if(showContourLines) {
+      if(!linesValid) {
+        double[] levels = new double[contour_lines];
+        for(int c = 0; c<contour_lines; c++) {
+          levels[c] = zmin+(c+1)*contour_stepz;
+        }
+        contourLines.update(internalData, levels, griddata.getLeft(), dx, griddata.getTop(), dy);
+        linesValid = true;
+      }
       g.setColor(lineColor);
-      accumulator.drawAll(g);
+      AffineTransform toPixels = panel.getPixelTransform();
+      for(int c = 0, n = contourLines.getLevelCount(); c<n; c++) {
+        ((Graphics2D) g).draw(contourLines.getPath(c).createTransformedShape(toPixels));
+      }
       int lpix = panel.xToPix(griddata.getLeft());
       int tpix = panel.yToPix(griddata.getTop());
       int rpix = panel.xToPix(griddata.getRight());
@@ -303,6 +321,7 @@ public class ContourPlot implements Plot2D {
         zMap.setMinMax(zmin, zmax);
       }
       colorMap.setScale(zmin, zmax);
+      linesValid = false;
     }
   }
   
@@ -392,6 +411,7 @@ public class ContourPlot implements Plot2D {
     } else {
       updateDirect(griddata);
     }
+    linesValid = false;
     colorMap.updateLegend(zMap);
   }
 
@@ -473,7 +493,7 @@ public class ContourPlot implements Plot2D {
   }
 
   /**
-   * Creates contour plot of a single area division. Called by
+   * Fills the contour levels of a single area division. Called by
    * <code>draw</code> method
    *
    * @see #draw
@@ -558,23 +578,6 @@ public class ContourPlot implements Plot2D {
           g.fillPolygon(contour_x, contour_y, contour_n);
         }
       }
-      // Creates contour lines
-      if(showContourLines) {
-        int x = -1;
-        int y = -1;
-        for(int index = 1; index<8; index += 2) {
-          if(xpoints[index]>=0) {
-            if(x!=-1) {
-              accumulator.addLine(x, y, xpoints[index], ypoints[index]);
-            }
-            x = xpoints[index];
-            y = ypoints[index];
-          }
-        }
-        if((xpoints[1]>0)&&(x!=-1)) {
-          accumulator.addLine(x, y, xpoints[1], ypoints[1]);
-        }
-      }
       if(contour_n<3) {
         break;
       }
@@ -630,6 +633,7 @@ public class ContourPlot implements Plot2D {
     contour_lines = n;
     colorMap.setNumberOfColors(n); // Paco changed next line by this one
     contourColors = new Color[contour_lines+2];
+    linesValid = false;
   }
 
   /* The following methods are requried for the measurable interface */
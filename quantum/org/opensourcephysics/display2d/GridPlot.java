@@ -9,6 +9,8 @@ package org.opensourcephysics.display2d;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JFrame;
 import org.opensourcephysics.controls.XML;
 import org.opensourcephysics.controls.XMLControl;
@@ -33,6 +35,7 @@ public class GridPlot extends MeasuredImage implements Plot2D {
   Grid grid;
   ColorMapper colorMap;
   private int ampIndex = 0; // amplitude index
+  ForkJoinPool pool = ForkJoinPool.commonPool(); // null recolors on the calling thread
 
   /**
    * Constructs the GridPlot using the given griddata.
@@ -80,8 +83,8 @@ public class GridPlot extends MeasuredImage implements Plot2D {
     }
     int nx = griddata.getNx();
     int ny = griddata.getNy();
-    rgbData = new int[nx*ny];
     image = new BufferedImage(nx, ny, BufferedImage.TYPE_INT_ARGB);
+    rgbData = ((DataBufferInt) image.getRaster().getDataBuffer()).getData(); // pixels are written into the raster
     Grid newgrid = new Grid(nx, ny);
     newgrid.setColor(Color.lightGray);
     if(grid!=null) {
@@ -344,8 +347,46 @@ public class GridPlot extends MeasuredImage implements Plot2D {
     colorMap.updateLegend(null);
   }
 
+  /**
+   * Sets the pool used to recolor bands of image rows in parallel.
+   *
+   * @param pool the ForkJoinPool or null to recolor on the calling thread
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Gets the pool used to recolor bands of image rows in parallel.
+   *
+   * @return the ForkJoinPool or null if the image is recolored on the calling thread
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  /**
+   * Enables or disables parallel recoloring using the common ForkJoinPool.
+   *
+   * @param parallel true to split the image into bands of rows
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Gets the parallel flag.
+   *
+   * @return true if the image is split into bands of rows
+   */
+  public boolean isParallel() {
+    return pool!=null;
+  }
+
   /**
    * Recolors the image pixels using the data array.
+   *
+   * Bands of rows are recolored in parallel when a thread pool is set.
    */
   protected void recolorImage() {
     if(griddata==null) {
@@ -367,37 +408,43 @@ public class GridPlot extends MeasuredImage implements Plot2D {
     if(grid!=null) {
       grid.setMinMax(xmin, xmax, ymin, ymax);
     }
-    double[][][] data = griddata.getData();
-    int nx = griddata.getNx();
-    int ny = griddata.getNy();
-    if(griddata instanceof GridPointData) {
-      int index = ampIndex+2;
-      for(int j = 0, count = 0; j<ny; j++) {
-        for(int i = 0; i<nx; i++) {
-          rgbData[count] = colorMap.doubleToColor(data[i][j][index]).getRGB();
-          count++;
-        }
-      }
-      image.setRGB(0, 0, nx, ny, rgbData, 0, nx);
-    } else if(griddata instanceof ArrayData) {
-      for(int j = 0, count = 0; j<ny; j++) {
-        for(int i = 0; i<nx; i++) {
-          rgbData[count] = colorMap.doubleToColor(data[ampIndex][i][j]).getRGB();
-          count++;
+    final GridData griddata = this.griddata;
+    final double[][][] data = griddata.getData();
+    final int nx = griddata.getNx();
+    final int ny = griddata.getNy();
+    final int[] rgbData = this.rgbData;
+    final ColorMapper colorMap = this.colorMap;
+    final int ampIndex = this.ampIndex;
+    RowBands.recolor(pool, nx, ny, new RowBands.Rows() {
+      public void recolor(int start, int end) {
+        if(griddata instanceof GridPointData) {
+          int index = ampIndex+2;
+          for(int j = start, count = start*nx; j<end; j++) {
+            for(int i = 0; i<nx; i++) {
+              rgbData[count] = colorMap.doubleToColor(data[i][j][index]).getRGB();
+              count++;
+            }
+          }
+        } else if(griddata instanceof ArrayData) {
+          for(int j = start, count = start*nx; j<end; j++) {
+            for(int i = 0; i<nx; i++) {
+              rgbData[count] = colorMap.doubleToColor(data[ampIndex][i][j]).getRGB();
+              count++;
+            }
+          }
+        } else if(griddata instanceof FlatData) {
+          int stride = data[0][0].length/(nx*ny);
+          for(int j = start, count = start*nx; j<end; j++) {
+            int offset = j*nx*stride;
+            for(int i = 0; i<nx; i++) {
+              rgbData[count] = colorMap.doubleToColor(data[0][0][offset+i*stride+ampIndex]).getRGB();
+              count++;
+            }
+          }
         }
       }
-      image.setRGB(0, 0, nx, ny, rgbData, 0, nx);
-    } else if(griddata instanceof FlatData) {
-      int stride = data[0][0].length/(nx*ny);
-      for(int j = 0, count = 0; j<ny; j++) {
-        int offset = j*nx*stride;
-        for(int i = 0; i<nx; i++) {
-          rgbData[count] = colorMap.doubleToColor(data[0][0][offset+i*stride+ampIndex]).getRGB();
-          count++;
-        }
-      }
-      image.setRGB(0, 0, nx, ny, rgbData, 0, nx);
-    }
+
+    });
   }
 
   /**
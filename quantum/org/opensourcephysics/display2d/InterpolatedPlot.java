@@ -18,6 +18,7 @@ import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JFrame;
 import org.opensourcephysics.controls.OSPLog;
 import org.opensourcephysics.controls.XML;
@@ -46,6 +47,7 @@ public class InterpolatedPlot extends MeasuredImage implements Plot2D {
   int leftPix, rightPix, topPix, bottomPix;
   int ixsize, iysize;
   double top, left, bottom, right;
+  ForkJoinPool pool = ForkJoinPool.commonPool(); // null recolors on the calling thread
 
   /**
    * Constructs an InterpolatedPlot without data.
@@ -407,8 +409,46 @@ public class InterpolatedPlot extends MeasuredImage implements Plot2D {
     recolorImage();
   }
 
+  /**
+   * Sets the pool used to recolor bands of image rows in parallel.
+   *
+   * @param pool the ForkJoinPool or null to recolor on the calling thread
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Gets the pool used to recolor bands of image rows in parallel.
+   *
+   * @return the ForkJoinPool or null if the image is recolored on the calling thread
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  /**
+   * Enables or disables parallel recoloring using the common ForkJoinPool.
+   *
+   * @param parallel true to split the image into bands of rows
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Gets the parallel flag.
+   *
+   * @return true if the image is split into bands of rows
+   */
+  public boolean isParallel() {
+    return pool!=null;
+  }
+
   /**
    * Recolors the image pixels using the data array.
+   *
+   * Bands of rows are recolored in parallel when a thread pool is set.
    */
   protected void recolorImage() {
     if(!visible) {
@@ -417,7 +457,7 @@ public class InterpolatedPlot extends MeasuredImage implements Plot2D {
     // local reference for thread safety
     GridData griddata = this.griddata;
     BufferedImage image = this.image;
-    byte[][] rgbData = this.rgbData;
+    final byte[][] rgbData = this.rgbData;
     if(griddata==null) {
       return;
     }
@@ -441,29 +481,34 @@ public class InterpolatedPlot extends MeasuredImage implements Plot2D {
     if(rgbData[0].length!=image.getWidth()*image.getHeight()) {
       return;
     }
-    byte[] rgb = new byte[3];
-    double y = top;
-    double dx = (xmax-xmin)/(ixsize-1);
-    double dy = (ymin-ymax)/(iysize-1);
+    double dxPix = (xmax-xmin)/(ixsize-1);
+    double dyPix = (ymin-ymax)/(iysize-1);
     if(griddata.getDx()<0) {
-      dx = -dx;
+      dxPix = -dxPix;
     }
     if(griddata.getDy()>0) {
-      dy = -dy;
+      dyPix = -dyPix;
     }
-    int iw = image.getWidth();
-    for(int i = 0, row = image.getHeight(); i<row; i++) {
-      double x = left;
-      for(int j = 0; j<iw; j++) {
-        colorMap.doubleToComponents(griddata.interpolate(x, y, ampIndex), rgb);
-        int index = i*iw+j;
-        rgbData[0][index] = rgb[0]; // red
-        rgbData[1][index] = rgb[1]; // green
-        rgbData[2][index] = rgb[2]; // blue
-        x += dx;
+    final GridData data = griddata;
+    final ColorMapper colorMap = this.colorMap;
+    final int iw = image.getWidth(), ampIndex = this.ampIndex;
+    final double dx = dxPix, dy = dyPix, left = this.left, top = this.top;
+    RowBands.recolor(pool, iw, image.getHeight(), new RowBands.Rows() {
+      public void recolor(int start, int end) {
+        byte[] rgb = new byte[3];
+        for(int i = start; i<end; i++) {
+          double x = left, y = top+i*dy;
+          for(int j = 0, index = i*iw; j<iw; j++, index++) {
+            colorMap.doubleToComponents(data.interpolate(x, y, ampIndex), rgb);
+            rgbData[0][index] = rgb[0]; // red
+            rgbData[1][index] = rgb[1]; // green
+            rgbData[2][index] = rgb[2]; // blue
+            x += dx;
+          }
+        }
       }
-      y += dy;
-    }
+
+    });
   }
 
   /**
@@ -0,0 +1,99 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.display2d;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * RowBands splits the rows of an image into bands that are recolored by the threads of a ForkJoinPool.
+ *
+ * The image is divided into one band per thread of the pool, and every band is recolored by a call to
+ * Rows.recolor that allocates its own scratch arrays. Small images, and images recolored without a pool,
+ * are recolored on the calling thread.
+ */
+class RowBands extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+  static final int MIN_PIXELS = 1<<14; // images smaller than this are not split
+
+  /**
+   * Recolors a band of image rows.
+   */
+  interface Rows {
+    /**
+     * Recolors rows start to end-1.
+     *
+     * @param start the first row
+     * @param end one past the last row
+     */
+    void recolor(int start, int end);
+  }
+
+  final Rows rows;
+  final int start, end;
+
+  RowBands(Rows rows, int start, int end) {
+    this.rows = rows;
+    this.start = start;
+    this.end = end;
+  }
+
+  protected void compute() {
+    rows.recolor(start, end);
+  }
+
+  /**
+   * Recolors the rows of an image with width*height pixels.
+   *
+   * @param pool the ForkJoinPool or null for a serial recolor
+   * @param width the number of pixels in a row
+   * @param height the number of rows
+   * @param rows recolors a band of rows
+   */
+  static void recolor(ForkJoinPool pool, int width, int height, Rows rows) {
+    int nbands = (pool==null) ? 1 : Math.min(pool.getParallelism(), height);
+    if((nbands<=1)||(width*height<MIN_PIXELS)) {
+      rows.recolor(0, height);
+      return;
+    }
+    final RowBands[] bands = new RowBands[nbands];
+    for(int k = 0; k<nbands; k++) {
+      bands[k] = new RowBands(rows, k*height/nbands, (k+1)*height/nbands);
+    }
+    pool.invoke(new RecursiveAction() {
+      protected void compute() {
+        invokeAll(bands);
+      }
+
+    });
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
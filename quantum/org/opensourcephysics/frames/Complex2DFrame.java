@@ -24,6 +24,7 @@ import org.opensourcephysics.display.InteractivePanel;
 import org.opensourcephysics.display.PlottingPanel;
 import org.opensourcephysics.display2d.ArrayData;
 import org.opensourcephysics.display2d.ComplexColorMapper;
+import org.opensourcephysics.display2d.ComplexFlatData;
 import org.opensourcephysics.display2d.ComplexGridPlot;
 import org.opensourcephysics.display2d.ComplexInterpolatedPlot;
 import org.opensourcephysics.display2d.ComplexSurfacePlot;
@@ -352,10 +353,75 @@ public class Complex2DFrame extends DrawingFrame {
   /**
    * Resizes the grid used to store the field using the panel's preferred min/max values.
    *
+   * The arrays are reused if the grid already has the given size.
+   *
    * @param nx int
    * @param ny int
    */
   public void resizeGrid(int nx, int ny) {
+    if((gridData instanceof ArrayData)&&(gridData.getNx()==nx)&&(gridData.getNy()==ny)) {
+      updateGrid();
+      return;
+    }
+    setGridData(new ArrayData(nx, ny, 3)); // a grid with three data components
+  }
+
+  /**
+   * Displays the given array of complex numbers without copying it.
+   *
+   * The array is assumed to contain complex numbers in row-major format and belongs to the caller.
+   * Changes to the array are shown after the next call to this method, which only swaps the array
+   * and recolors the plot.
+   * A ComplexFlatData wraps the array and is reused while nx and the array length do not change.
+   *
+   * @param vals double[] complex field values
+   * @param nx the number of x values
+   */
+  public void setSharedData(double[] vals, int nx) {
+    if((vals.length/2)%nx!=0) {
+      throw new IllegalArgumentException("Number of values in grid (nx*ny) must match number of values."); //$NON-NLS-1$
+    }
+    int ny = vals.length/2/nx;
+    if((gridData instanceof ComplexFlatData)&&(gridData.getNx()==nx)&&(gridData.getNy()==ny)) {
+      ((ComplexFlatData) gridData).setData(vals);
+      updateGrid();
+    } else {
+      setGridData(new ComplexFlatData(vals, nx, ny));
+    }
+  }
+
+  /**
+   * Displays the given array of complex numbers without copying it and sets the scale.
+   *
+   * @param vals double[] complex field values
+   * @param nx the number of x values
+   * @param xmin double
+   * @param xmax double
+   * @param ymin double
+   * @param ymax double
+   */
+  public void setSharedData(double[] vals, int nx, double xmin, double xmax, double ymin, double ymax) {
+    setSharedData(vals, nx);
+    if(gridData.isCellData()) {
+      gridData.setCellScale(xmin, xmax, ymin, ymax);
+    } else {
+      gridData.setScale(xmin, xmax, ymin, ymax);
+    }
+  }
+
+  private void updateGrid() {
+    plot.update();
+    if((tableFrame!=null)&&tableFrame.isShowing()) {
+      tableFrame.refreshTable();
+    }
+    drawingPanel.invalidateImage();
+    drawingPanel.repaint();
+  }
+
+  /**
+   * Replaces the grid and keeps the scale of the previous grid or the panel's preferred min/max values.
+   */
+  private void setGridData(GridData data) {
     double xmin, xmax, ymin, ymax;
     boolean cellScale = false;
     if(gridData==null) {
@@ -370,7 +436,7 @@ public class Complex2DFrame extends DrawingFrame {
       ymax = gridData.getTop();
       cellScale = gridData.isCellData();
     }
-    gridData = new ArrayData(nx, ny, 3); // a grid with three data components
+    gridData = data;
     gridData.setComponentName(0, DisplayRes.getString("Complex2DFrame.GridData.Magnitude")); //$NON-NLS-1$
     gridData.setComponentName(1, DisplayRes.getString("Complex2DFrame.GridData.Real"));      //$NON-NLS-1$
     gridData.setComponentName(2, DisplayRes.getString("Complex2DFrame.GridData.Imaginary")); //$NON-NLS-1$
@@ -379,7 +445,7 @@ public class Complex2DFrame extends DrawingFrame {
     } else {
       gridData.setScale(xmin, xmax, ymin, ymax);
     }
-    if(nx!=ny) {
+    if(gridData.getNx()!=gridData.getNy()) {
       surfaceItem.setEnabled(false);
       if(plot instanceof ComplexSurfacePlot) {
         convertToGridPlot();
@@ -388,12 +454,7 @@ public class Complex2DFrame extends DrawingFrame {
       surfaceItem.setEnabled(true);
     }
     plot.setGridData(gridData);
-    plot.update();
-    if((tableFrame!=null)&&tableFrame.isShowing()) {
-      tableFrame.refreshTable();
-    }
-    drawingPanel.invalidateImage();
-    drawingPanel.repaint();
+    updateGrid();
   }
 
   /*
@@ -411,6 +472,9 @@ public class Complex2DFrame extends DrawingFrame {
     if(gridData.getNx()!=vals.length) {
       throw new IllegalArgumentException("Row data length does not match grid size."); //$NON-NLS-1$
     }
+    if(!(gridData instanceof ArrayData)) { // do not write into a shared array
+      resizeGrid(gridData.getNx(), gridData.getNy());
+    }
     double[] re = gridData.getData()[1][row];
     double[] im = gridData.getData()[2][row];
     double[] phase = gridData.getData()[0][row];
@@ -513,6 +577,9 @@ public class Complex2DFrame extends DrawingFrame {
     if(vals.length!=2*nx*ny) {
       throw new IllegalArgumentException("Grid does not have the correct size."); //$NON-NLS-1$
     }
+    if(!(gridData instanceof ArrayData)) { // do not write into a shared array
+      resizeGrid(nx, ny);
+    }
     double[][] mag = gridData.getData()[0]; // magnitude maps to color
     double[][] reData = gridData.getData()[1];
     double[][] imData = gridData.getData()[2];
@@ -0,0 +1,77 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+
+/**
+ * BatchODE defines many independent copies of a system of differential equations whose
+ * states are stored together in structure-of-arrays order.
+ *
+ * Variable i of system s is stored in state[i*n + s] where n = getNumSystems(), so each variable
+ * of a block of systems is a contiguous run of the array. A BatchODESolver evaluates the rates of a
+ * whole block of systems with one call.
+ */
+public interface BatchODE {
+  /**
+   * Gets the number of equations of each system.
+   *
+   * @return the number of equations
+   */
+  public int getNumEqn();
+
+  /**
+   * Gets the number of systems.
+   *
+   * @return the number of systems
+   */
+  public int getNumSystems();
+
+  /**
+   * Gets the state variables of all systems in structure-of-arrays order.
+   *
+   * @return state  the state
+   */
+  public double[] getState();
+
+  /**
+   * Gets the rates of systems start to end-1 using the argument's state variables.
+   *
+   * Only the entries of the given systems are read from state and written to rate. This method
+   * is invoked concurrently for disjoint blocks of systems when the solver is parallel.
+   *
+   * @param state  the state array of all systems
+   * @param rate   the rate array of all systems
+   * @param start  the first system
+   * @param end    one past the last system
+   */
+  public void getRate(double[] state, double[] rate, int start, int end);
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
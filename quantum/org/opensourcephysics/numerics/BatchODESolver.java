@@ -0,0 +1,213 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BatchODESolver advances all systems of a BatchODE by the step size.
+ *
+ * The systems are divided into blocks of getBlockSize() systems. Each block is advanced by
+ * stepBlock, which works on contiguous runs of the structure-of-arrays state; the blocks are
+ * independent and are split across the threads of a ForkJoinPool by setThreadPool.
+ * Temporary arrays hold all systems, so the blocks share them without copying.
+ */
+public abstract class BatchODESolver implements ODESolver {
+  protected double stepSize = 0.1; // parameter increment such as delta time
+  protected int numEqn = 0;        // number of equations of each system
+  protected int numSystems = 0;    // number of systems
+  protected BatchODE ode;          // object that computes the rates
+  protected int blockSize = 1024;  // number of systems in a block
+  protected ForkJoinPool pool;     // null for a serial solver
+
+  /**
+   * Constructs the solver for a batch of differential equations.
+   *
+   * @param _ode the batch of differential equations.
+   */
+  public BatchODESolver(BatchODE _ode) {
+    ode = _ode;
+    initialize(0.1);
+  }
+
+  /**
+   * Initializes the solver.
+   *
+   * The number of equations and systems are read from the BatchODE and allocate is invoked.
+   *
+   * @param _stepSize
+   */
+  public void initialize(double _stepSize) {
+    stepSize = _stepSize;
+    numEqn = ode.getNumEqn();
+    numSystems = ode.getNumSystems();
+    allocate(numEqn*numSystems);
+  }
+
+  /**
+   * Allocates temporary arrays of the given length.
+   *
+   * @param length the number of equations times the number of systems
+   */
+  protected abstract void allocate(int length);
+
+  /**
+   * Advances systems start to end-1 by the step size.
+   *
+   * @param state the state array of all systems
+   * @param block the index of the block
+   * @param start the first system
+   * @param end   one past the last system
+   */
+  protected abstract void stepBlock(double[] state, int block, int start, int end);
+
+  /**
+   * Steps (advances) all systems by the stepSize.
+   *
+   * @return the step size
+   */
+  public double step() {
+    double state[] = ode.getState();
+    if(state==null) {
+      return stepSize;
+    }
+    if((numEqn!=ode.getNumEqn())||(numSystems!=ode.getNumSystems())) {
+      initialize(stepSize);
+    }
+    int numBlocks = getNumBlocks();
+    if(pool==null) {
+      for(int b = 0; b<numBlocks; b++) {
+        stepBlock(state, b, b*blockSize, Math.min(numSystems, (b+1)*blockSize));
+      }
+    } else {
+      pool.invoke(new BlockTask(this, state, 0, numBlocks));
+    }
+    return stepSize;
+  }
+
+  /**
+   * Gets the number of blocks.
+   *
+   * @return the number of blocks
+   */
+  public int getNumBlocks() {
+    return (numSystems+blockSize-1)/blockSize;
+  }
+
+  /**
+   * Sets the number of systems in a block.
+   *
+   * A block of a few hundred to a few thousand systems keeps the temporary arrays of a block in cache.
+   *
+   * @param size the number of systems
+   */
+  public void setBlockSize(int size) {
+    if(size<1) {
+      throw new IllegalArgumentException("The block size must be positive: "+size); //$NON-NLS-1$
+    }
+    blockSize = size;
+    initialize(stepSize);
+  }
+
+  /**
+   * Gets the number of systems in a block.
+   *
+   * @return the number of systems
+   */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Sets the pool used to advance the blocks in parallel; null advances the blocks serially.
+   *
+   * @param pool the ForkJoinPool or null
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Enables or disables parallel steps using the common ForkJoinPool.
+   *
+   * @param parallel true to advance the blocks in parallel
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Sets the step size.
+   *
+   * @param _stepSize
+   */
+  public void setStepSize(double _stepSize) {
+    stepSize = _stepSize;
+  }
+
+  /**
+   * Gets the step size.
+   *
+   * @return the step size
+   */
+  public double getStepSize() {
+    return stepSize;
+  }
+
+  /**
+   * Advances a range of blocks, splitting the range in half until a task holds one block.
+   */
+  static class BlockTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final BatchODESolver solver;
+    final double[] state;
+    final int start, end;
+
+    BlockTask(BatchODESolver solver, double[] state, int start, int end) {
+      this.solver = solver;
+      this.state = state;
+      this.start = start;
+      this.end = end;
+    }
+
+    protected void compute() {
+      if(end-start>1) {
+        int mid = (start+end)>>>1;
+        invokeAll(new BlockTask(solver, state, start, mid), new BlockTask(solver, state, mid, end));
+        return;
+      }
+      int size = solver.blockSize;
+      solver.stepBlock(state, start, start*size, Math.min(solver.numSystems, (start+1)*size));
+    }
+
+  }
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -0,0 +1,86 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+
+/**
+ * BatchRK4 advances a BatchODE with the classical fourth order Runge-Kutta method.
+ */
+public class BatchRK4 extends BatchODESolver {
+  private double[] rate1, rate2, rate3, rate4, estimated_state;
+
+  /**
+   * Constructs the BatchRK4 solver for a batch of differential equations.
+   *
+   * @param ode the batch of differential equations.
+   */
+  public BatchRK4(BatchODE ode) {
+    super(ode);
+  }
+
+  protected void allocate(int length) {
+    rate1 = new double[length];
+    rate2 = new double[length];
+    rate3 = new double[length];
+    rate4 = new double[length];
+    estimated_state = new double[length];
+  }
+
+  protected void stepBlock(double[] state, int block, int start, int end) {
+    double h = stepSize;
+    int n = numSystems;
+    ode.getRate(state, rate1, start, end);
+    for(int i = 0; i<numEqn; i++) {
+      for(int j = i*n+start, last = i*n+end; j<last; j++) {
+        estimated_state[j] = state[j]+h*rate1[j]/2;
+      }
+    }
+    ode.getRate(estimated_state, rate2, start, end);
+    for(int i = 0; i<numEqn; i++) {
+      for(int j = i*n+start, last = i*n+end; j<last; j++) {
+        estimated_state[j] = state[j]+h*rate2[j]/2;
+      }
+    }
+    ode.getRate(estimated_state, rate3, start, end);
+    for(int i = 0; i<numEqn; i++) {
+      for(int j = i*n+start, last = i*n+end; j<last; j++) {
+        estimated_state[j] = state[j]+h*rate3[j];
+      }
+    }
+    ode.getRate(estimated_state, rate4, start, end);
+    for(int i = 0; i<numEqn; i++) {
+      for(int j = i*n+start, last = i*n+end; j<last; j++) {
+        state[j] = state[j]+h*(rate1[j]+2*rate2[j]+2*rate3[j]+rate4[j])/6.0;
+      }
+    }
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
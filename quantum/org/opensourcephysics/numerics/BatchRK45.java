@@ -0,0 +1,174 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+
+/**
+ * BatchRK45 advances a BatchODE with the Dormand-Prince 4(5) embedded Runge-Kutta method.
+ *
+ * Every call to step advances all systems by the step size. Within a step each block takes as many
+ * adaptive substeps as its own error allows, so stiff blocks do not slow down the others. The
+ * error of a substep is the largest error of any variable of the block, as in DormandPrince45.
+ * The substep size of each block is remembered from one step to the next. A negative step size
+ * integrates backward.
+ */
+public class BatchRK45 extends BatchODESolver implements ODEAdaptiveSolver {
+  static final int numStages = 6;   // number of intermediate rate computations
+  static final int maxSubsteps = 10000;
+  private double[] temp_state;
+  private double[][] k;
+  private double[] blockStep;       // substep size of each block
+  protected double tol = 1.0e-6;
+  protected volatile int error_code = ODEAdaptiveSolver.NO_ERROR;
+
+  /**
+   * Constructs the BatchRK45 solver for a batch of differential equations.
+   *
+   * @param ode the batch of differential equations.
+   */
+  public BatchRK45(BatchODE ode) {
+    super(ode);
+  }
+
+  protected void allocate(int length) {
+    temp_state = new double[length];
+    k = new double[numStages][length];
+    blockStep = new double[getNumBlocks()];
+  }
+
+  public double step() {
+    error_code = ODEAdaptiveSolver.NO_ERROR;
+    return super.step();
+  }
+
+  protected void stepBlock(double[] state, int block, int start, int end) {
+    int n = numSystems;
+    double sign = (stepSize<0) ? -1 : 1;   // substeps are sized on |remaining| and signed when taken
+    double remaining = Math.abs(stepSize);
+    double h = (blockStep[block]>0) ? blockStep[block] : remaining;
+    ode.getRate(state, k[0], start, end); // get the initial rate
+    for(int count = 0; remaining>0; count++) {
+      if(count==maxSubsteps) {
+        error_code = ODEAdaptiveSolver.DID_NOT_CONVERGE;
+        return;
+      }
+      boolean last = (h>=remaining*(1-1.0e-12));
+      double currentStep = last ? remaining : h;
+      double dt = sign*currentStep;
+      // Compute the k's
+      for(int s = 1; s<numStages; s++) {
+        for(int i = 0; i<numEqn; i++) {
+          for(int j = i*n+start, jEnd = i*n+end; j<jEnd; j++) {
+            double sum = state[j];
+            for(int m = 0; m<s; m++) {
+              sum += dt*DormandPrince45.a[s-1][m]*k[m][j];
+            }
+            temp_state[j] = sum;
+          }
+        }
+        ode.getRate(temp_state, k[s], start, end);
+      }
+      // Compute the error
+      double error = 0;
+      for(int j0 = start; j0<end; j0++) {
+        for(int j = j0, jEnd = numEqn*n; j<jEnd; j += n) {
+          double truncErr = 0;
+          for(int s = 0; s<numStages; s++) {
+            truncErr += dt*DormandPrince45.er[s]*k[s][j];
+          }
+          error = Math.max(error, Math.abs(truncErr));
+        }
+      }
+      if(error<=Float.MIN_VALUE) { // error too small to be meaningful,
+        error = tol/1.0e5;         // increase the substep x10
+      }
+      if(error<=tol) {             // accept the substep
+        for(int i = 0; i<numEqn; i++) {
+          for(int j = i*n+start, jEnd = i*n+end; j<jEnd; j++) {
+            double sum = state[j];
+            for(int s = 0; s<numStages; s++) {
+              sum += dt*DormandPrince45.b5[s]*k[s][j];
+            }
+            state[j] = sum;
+          }
+        }
+        remaining = last ? 0 : remaining-currentStep;
+        if(remaining>0) {
+          ode.getRate(state, k[0], start, end);
+        }
+        if(error<tol/10.0) {       // grow, but no more than factor of 10
+          double fac = 0.9*Math.pow(error/tol, -0.2);
+          if(fac>1) {
+            h = currentStep*Math.min(fac, 10);
+          }
+        } else if(!last) {
+          h = currentStep;
+        }
+      } else {                     // shrink, no more than x10
+        double fac = 0.9*Math.pow(error/tol, -0.25);
+        h = currentStep*Math.max(fac, 0.1);
+      }
+    }
+    blockStep[block] = h;
+  }
+
+  /**
+   * Sets the tolerance of the largest error of a substep.
+   *
+   * @param _tol
+   */
+  public void setTolerance(double _tol) {
+    tol = Math.abs(_tol);
+    if(tol<1.0E-12) {
+      System.err.println("Error: BatchRK45 ODE solver tolerance cannot be smaller than 1.0e-12."); //$NON-NLS-1$
+      tol = 1.0e-12;
+    }
+  }
+
+  /**
+   * Gets the tolerance.
+   *
+   * @return the tolerance
+   */
+  public double getTolerance() {
+    return tol;
+  }
+
+  /**
+   * Gets the error code of the last step.
+   *
+   * @return ODEAdaptiveSolver.NO_ERROR or ODEAdaptiveSolver.DID_NOT_CONVERGE
+   */
+  public int getErrorCode() {
+    return error_code;
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -13,7 +13,7 @@ package org.opensourcephysics.numerics;
  * @author       F. Esquembre
  * @version 1.0
  */
-public class CashKarp45 implements ODEAdaptiveSolver {
+public class CashKarp45 implements ODEInterpolationSolver {
   int error_code = ODEAdaptiveSolver.NO_ERROR;
   // embedding constants Cash-Karp 4th and 5th order
   static final double[][] a = {
@@ -24,6 +24,12 @@ public class CashKarp45 implements ODEAdaptiveSolver {
   // b5 are 5th oreer coefficients
   static final double[] b5 = {37./378., 0., 250./621., 125./594., 0., 512./1771.};
   static final double[] er = {277./64512., 0., -6925./370944., 6925./202752., 277./14336., -277./7084.};
+  // dense_weights[q][s] is the coefficient of theta^(q+1) in the weight of stage s of the continuous extension;
+  // the seventh stage is the rate at the end of the step
+  static final double[][] dense_weights = {
+    {1., 0., 0., 0., 0., 0., 0.}, {-65./21., 0., 2500./483., -125./44., -45./28., 1536./1771., 3./2.},
+    {677./189., 0., -38000./4347., 3875./594., 45./14., -1024./1771., -4.}, {-25./18., 0., 250./63., -125./36., -45./28., 0., 5./2.}
+  };
   static final int numStages = 6; // number of intermediate rate computations
   private double stepSize = 0.01;
   private int numEqn = 0;
@@ -33,6 +39,7 @@ public class CashKarp45 implements ODEAdaptiveSolver {
   private ODE ode;
   protected double tol = 1.0e-6;
   protected boolean enableExceptions = false;
+  private DenseOutput dense = new DenseOutput(dense_weights);
 
   /**
    * Constructs the CashKarp45 ODESolver for a system of ordinary  differential equations.
@@ -79,7 +86,10 @@ public class CashKarp45 implements ODEAdaptiveSolver {
     int iterations = 10;
     double currentStep = stepSize, error = 0;
     double state[] = ode.getState();
-    ode.getRate(state, k[0]); // get the initial rate
+    if(!dense.reuseRate(state, k[0])) {
+      ode.getRate(state, k[0]); // get the initial rate
+    }
+    dense.start(state, k[0]);
     do {
       iterations--;
       currentStep = stepSize;
@@ -128,9 +138,31 @@ public class CashKarp45 implements ODEAdaptiveSolver {
         throw new ODESolverException("CashKarp45 ODE solver did not converge."); //$NON-NLS-1$
       }
     }
+    dense.finish(state, currentStep, k);
     return currentStep; // the value of the step actually taken.
   }
 
+  /**
+   * Gets the state at a time within the last step from a fourth order continuous extension
+   * of the step that is built from the stage rates of the step.
+   *
+   * @param dt    the time since the start of the last step
+   * @param state the array that receives the state; a new array is allocated if null
+   * @return the state
+   */
+  public double[] interpolate(double dt, double[] state) {
+    return dense.interpolate(ode, dt, state);
+  }
+
+  /**
+   * Gets the size of the last step that was taken.
+   *
+   * @return the step size
+   */
+  public double getLastStepSize() {
+    return dense.getStepSize();
+  }
+
   /**
    * Enables runtime exceptions if the solver does not converge.
    * @param enable boolean
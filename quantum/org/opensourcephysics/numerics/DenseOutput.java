@@ -0,0 +1,167 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.Arrays;
+
+/**
+ * DenseOutput stores the state, the stage rates and the rate at the end of the last step of a
+ * six-stage Runge-Kutta solver and evaluates a fourth order continuous extension of the step.
+ *
+ * The state at a fraction theta of the step is y0+h*sum(w[s](theta)*k[s]), where k[6] is the rate at
+ * the end of the step and each weight w[s] is a polynomial in theta given by the solver. The extension
+ * matches the state and the rate at both ends of the step, so the interpolated solution is smooth
+ * across steps and its error is of the same order as the local error of the solver's 4th order
+ * estimate. The rate at the end of the step is computed when it is first needed and is handed back to
+ * the solver as the initial rate of the next step, so interpolation costs no extra rate evaluations as
+ * long as the state is not changed between steps.
+ */
+final class DenseOutput {
+  private final double[][] weights;                 // weights[q][s] is the coefficient of theta^(q+1) in w[s]
+  private double[] y0 = new double[0], y1;
+  private double[][] k = new double[0][];           // the stage rates followed by the rate at the end
+  private double[] w;
+  private double h;
+  private boolean haveStep = false, haveEndRate = false;
+
+  /**
+   * Constructs the dense output of a solver whose continuous extension has the given weights.
+   *
+   * @param weights weights[q][s] is the coefficient of theta^(q+1) in the weight of stage s;
+   *                the last stage is the rate at the end of the step
+   */
+  DenseOutput(double[][] weights) {
+    this.weights = weights;
+    w = new double[weights[0].length];
+  }
+
+  /**
+   * Copies the state and the rate at the start of a step.
+   */
+  void start(double[] state, double[] rate) {
+    int n = state.length;
+    if(y0.length!=n) {
+      y0 = new double[n];
+      y1 = new double[n];
+      k = new double[w.length][n];
+    }
+    System.arraycopy(state, 0, y0, 0, n);
+    System.arraycopy(rate, 0, k[0], 0, n);
+    haveStep = haveEndRate = false;
+  }
+
+  /**
+   * Copies the state at the end of a step of size dt and the stage rates of the step.
+   *
+   * @param state the state at the end of the step
+   * @param dt the step size
+   * @param rates the stage rates; rates[0] is the rate at the start of the step
+   */
+  void finish(double[] state, double dt, double[][] rates) {
+    System.arraycopy(state, 0, y1, 0, state.length);
+    for(int s = 1; s<rates.length; s++) {
+      System.arraycopy(rates[s], 0, k[s], 0, state.length);
+    }
+    h = dt;
+    haveStep = true;
+  }
+
+  /**
+   * Copies the last step of another dense output of the same solver.
+   */
+  void copy(DenseOutput source) {
+    int n = source.y0.length;
+    if(y0.length!=n) {
+      y0 = new double[n];
+      y1 = new double[n];
+      k = new double[w.length][n];
+    }
+    System.arraycopy(source.y0, 0, y0, 0, n);
+    System.arraycopy(source.y1, 0, y1, 0, n);
+    for(int s = 0; s<k.length; s++) {
+      System.arraycopy(source.k[s], 0, k[s], 0, n);
+    }
+    h = source.h;
+    haveStep = source.haveStep;
+    haveEndRate = source.haveEndRate;
+  }
+
+  /**
+   * Copies the rate at the end of the last step into rate if the state has not changed since the step.
+   *
+   * @return true if the rate was copied
+   */
+  boolean reuseRate(double[] state, double[] rate) {
+    if(haveEndRate&&(state.length==y1.length)&&Arrays.equals(state, y1)) {
+      System.arraycopy(k[k.length-1], 0, rate, 0, rate.length);
+      return true;
+    }
+    return false;
+  }
+
+  double getStepSize() {
+    return haveStep ? h : 0;
+  }
+
+  /**
+   * Evaluates the continuous extension at dt after the start of the last step.
+   */
+  double[] interpolate(ODE ode, double dt, double[] state) {
+    if(!haveStep) {
+      throw new IllegalStateException("No step has been taken."); //$NON-NLS-1$
+    }
+    if(!haveEndRate) {
+      ode.getRate(y1, k[k.length-1]);
+      haveEndRate = true;
+    }
+    int n = y0.length;
+    if((state==null)||(state.length!=n)) {
+      state = new double[n];
+    }
+    double theta = dt/h;
+    for(int s = 0; s<w.length; s++) {
+      double sum = 0;
+      for(int q = weights.length-1; q>=0; q--) { // Horner's rule
+        sum = (sum+weights[q][s])*theta;
+      }
+      w[s] = sum*h;
+    }
+    for(int i = 0; i<n; i++) {
+      double sum = y0[i];
+      for(int s = 0; s<w.length; s++) {
+        sum += w[s]*k[s][i];
+      }
+      state[i] = sum;
+    }
+    return state;
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
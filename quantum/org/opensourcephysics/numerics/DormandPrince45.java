@@ -14,7 +14,7 @@ package org.opensourcephysics.numerics;
  * @author       F. Esquembre
  * @version 1.0
  */
-public class DormandPrince45 implements ODEAdaptiveSolver {
+public class DormandPrince45 implements ODEInterpolationSolver {
   int error_code = ODEAdaptiveSolver.NO_ERROR;
   // embedding constants Dormand-Prince 4th and 5th order
   static final double[][] a = {
@@ -25,6 +25,12 @@ public class DormandPrince45 implements ODEAdaptiveSolver {
   // er array contains the error coefficients; the difference between the 4th and 5th order coefficients
   // er[0] is computed to be -11/360 = 31/540-19/216
   static final double[] er = {-11.0/360.0, 0.0, 10.0/63.0, -55.0/72.0, 27.0/40.0, -11.0/280.0};
+  // dense_weights[q][s] is the coefficient of theta^(q+1) in the weight of stage s of the continuous extension;
+  // the seventh stage is the rate at the end of the step
+  static final double[][] dense_weights = {
+    {1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0}, {-15.0/8.0, 0.0, -250.0/231.0, 625.0/24.0, -2187.0/88.0, 15.0/56.0, 3.0/2.0},
+    {119.0/108.0, 0.0, 8500.0/2079.0, -5875.0/108.0, 2349.0/44.0, -5.0/28.0, -4.0}, {-5.0/36.0, 0.0, -250.0/99.0, 250.0/9.0, -1215.0/44.0, 0.0, 5.0/2.0}
+  };
   static final int numStages = 6; // number of intermediate rate computations
   private volatile double stepSize = 0.01;
   private int numEqn = 0;
@@ -34,6 +40,7 @@ public class DormandPrince45 implements ODEAdaptiveSolver {
   private ODE ode;
   protected double tol = 1.0e-6;
   protected boolean enableExceptions = false;
+  private DenseOutput dense = new DenseOutput(dense_weights);
 
   /**
    * Constructs the DormandPrince45 ODESolver for a system of ordinary  differential equations.
@@ -80,7 +87,10 @@ public class DormandPrince45 implements ODEAdaptiveSolver {
     int iterations = 10;
     double currentStep = stepSize, error = 0;
     double state[] = ode.getState();
-    ode.getRate(state, k[0]); // get the initial rate
+    if(!dense.reuseRate(state, k[0])) {
+      ode.getRate(state, k[0]); // get the initial rate
+    }
+    dense.start(state, k[0]);
     do {
       iterations--;
       currentStep = stepSize;
@@ -129,9 +139,38 @@ public class DormandPrince45 implements ODEAdaptiveSolver {
         throw new ODESolverException("DormanPrince45 ODE solver did not converge."); //$NON-NLS-1$
       }
     }
+    dense.finish(state, currentStep, k);
     return currentStep; // the value of the step actually taken.
   }
 
+  /**
+   * Gets the state at a time within the last step from a fourth order continuous extension
+   * of the step that is built from the stage rates of the step.
+   *
+   * @param dt    the time since the start of the last step
+   * @param state the array that receives the state; a new array is allocated if null
+   * @return the state
+   */
+  public double[] interpolate(double dt, double[] state) {
+    return dense.interpolate(ode, dt, state);
+  }
+
+  /**
+   * Gets the size of the last step that was taken.
+   *
+   * @return the step size
+   */
+  public double getLastStepSize() {
+    return dense.getStepSize();
+  }
+
+  /**
+   * Gets the dense output that holds the last step.
+   */
+  DenseOutput getDenseOutput() {
+    return dense;
+  }
+
   /**
    * Enables runtime exceptions if the solver does not converge.
    * @param enable boolean
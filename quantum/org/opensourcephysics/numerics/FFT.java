@@ -31,6 +31,11 @@ package org.opensourcephysics.numerics;
  *
  *  The transformed data is returned in the original data array in wrap-around order.
  *
+ *  The transform works in a scratch array that is allocated when the length is set,
+ *  so an FFT must not be shared between threads. Threads that transform concurrently,
+ *  such as the parallel passes of FFT2D and FFT3D, each own an FFT; the wavetable is
+ *  shared by all the FFTs of the same length.
+ *
  *  @author Bruce R. Miller bruce.miller@nist.gov
  *  @author Contribution of the National Institute of Standards and Technology,
  *  @author not subject to copyright.
@@ -348,43 +353,13 @@ public class FFT {
    * Setting up the Wavetable
    */
   private int factors[];
-  // Reversed the last 2 levels of the twiddle array compared to what the C version had.
-
   private double twiddle[][][];
-  private int available_factors[] = {7, 6, 5, 4, 3, 2};
 
   private void setup_wavetable(int n) {
-    if(n<=0) {
-      throw new Error("length must be positive integer : "+n); //$NON-NLS-1$
-    }
+    FFTPlan plan = FFTPlan.getPlan(n); // shared with every FFT of the same length
     this.n = n;
-    factors = factor(n, available_factors);
-    double d_theta = -2.0*PI/(n);
-    int product = 1;
-    twiddle = new double[factors.length][][];
-    for(int i = 0; i<factors.length; i++) {
-      int factor = factors[i];
-      int product_1 = product;      /* product_1 = p_(i-1) */
-      product *= factor;
-      int q = n/product;
-      twiddle[i] = new double[q+1][2*(factor-1)];
-      double twid[][] = twiddle[i];
-      for(int j = 1; j<factor; j++) {
-        twid[0][2*(j-1)] = 1.0;
-        twid[0][2*(j-1)+1] = 0.0;
-      }
-      for(int k = 1; k<=q; k++) {
-        int m = 0;
-        for(int j = 1; j<factor; j++) {
-          // int m = (k*j*product_1) % n;
-          m += k*product_1;
-          m %= n;
-          double theta = d_theta*m; /* d_theta*j*k*p_(i-1) */
-          twid[k][2*(j-1)] = Math.cos(theta);
-          twid[k][2*(j-1)+1] = Math.sin(theta);
-        }
-      }
-    }
+    factors = plan.factors;
+    twiddle = plan.twiddle;
   }
 
   /*
@@ -404,7 +379,6 @@ public class FFT {
     if(n==1) {
       return; /* FFT of 1 data point is the identity */
     }
-    double scratch[] = new double[2*n];
     int product = 1;
     int state = 0;
     double in[], out[];
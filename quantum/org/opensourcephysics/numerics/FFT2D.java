@@ -6,6 +6,8 @@
  */
 
 package org.opensourcephysics.numerics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * FFT2D computes the FFT of 2 dimensional complex, double precision data.
@@ -24,6 +26,14 @@ package org.opensourcephysics.numerics;
  * The transformed data is returned in the original data array in
  * <a href="package-summary.html#wraparound">wrap-around</A> order along each dimension.
  *
+ * The row and column passes can be split across the threads of a ForkJoinPool by calling
+ * setThreadPool. Every partition owns its own FFT so the parallel result is identical to
+ * the serial result.
+ *
+ * The column pass normally walks the data with a stride of rowspan. For large arrays
+ * setColumnBlockSize copies a tile of columns into a contiguous buffer, transforms the
+ * columns in the buffer, and copies them back.
+ *
  * @author Bruce R. Miller bruce.miller@nist.gov
  * @author Contribution of the National Institute of Standards and Technology,
  * @author not subject to copyright.
@@ -34,6 +44,11 @@ public class FFT2D {
   int ncols;
   FFT rowFFT, colFFT;
   double[] acol, ccol;
+  ForkJoinPool pool;     // null for a serial transform
+  int blockSize = 0;     // number of columns in a tile; 0 transforms columns in place
+  double[] tile;
+  PassTask[] rowTasks, colTasks;
+  PassGroup rowGroup, colGroup;
 
   /**
    * Create an FFT for transforming nrows*ncols points of Complex, double precision
@@ -83,9 +98,18 @@ public class FFT2D {
    */
   void transform_internal(double data[], int rowspan) {
     checkData(data, rowspan);
+    if(pool!=null) {
+      invokePass(rowGroup, data, rowspan, FFT.FORWARD);
+      invokePass(colGroup, data, rowspan, FFT.FORWARD);
+      return;
+    }
     for(int i = 0; i<nrows; i++) {
       rowFFT.transform_internal(data, i*rowspan, 2, FFT.FORWARD);
     }
+    if(blockSize>0) {
+      tile = columnPass(colFFT, data, 0, rowspan, FFT.FORWARD, 0, ncols, blockSize, tile);
+      return;
+    }
     for(int j = 0; j<ncols; j++) {
       colFFT.transform_internal(data, 2*j, rowspan, FFT.FORWARD);
     }
@@ -106,14 +130,205 @@ public class FFT2D {
    */
   void backtransform_internal(double data[], int rowspan) {
     checkData(data, rowspan);
-    for(int j = 0; j<ncols; j++) {
-      colFFT.transform_internal(data, 2*j, rowspan, FFT.BACKWARD);
+    if(pool!=null) {
+      invokePass(colGroup, data, rowspan, FFT.BACKWARD);
+      invokePass(rowGroup, data, rowspan, FFT.BACKWARD);
+      return;
+    }
+    if(blockSize>0) {
+      tile = columnPass(colFFT, data, 0, rowspan, FFT.BACKWARD, 0, ncols, blockSize, tile);
+    } else {
+      for(int j = 0; j<ncols; j++) {
+        colFFT.transform_internal(data, 2*j, rowspan, FFT.BACKWARD);
+      }
     }
     for(int i = 0; i<nrows; i++) {
       rowFFT.transform_internal(data, i*rowspan, 2, FFT.BACKWARD);
     }
   }
 
+  /**
+   * Sets the pool used to split the row and column passes across threads.
+   *
+   * The rows (and then the columns) are divided into one partition per thread of the pool.
+   * A null pool restores the serial transform.
+   *
+   * @param pool the ForkJoinPool or null
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+    if(pool==null) {
+      rowTasks = colTasks = null;
+      rowGroup = colGroup = null;
+      return;
+    }
+    int np = Math.max(1, pool.getParallelism());
+    rowTasks = createTasks(Math.min(np, nrows), nrows, ncols, true);
+    colTasks = createTasks(Math.min(np, ncols), ncols, nrows, false);
+    rowGroup = new PassGroup(rowTasks);
+    colGroup = new PassGroup(colTasks);
+  }
+
+  /**
+   * Gets the pool used to split the row and column passes across threads.
+   *
+   * @return the ForkJoinPool or null if the transform is serial
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  /**
+   * Enables or disables parallel transforms using the common ForkJoinPool.
+   *
+   * @param parallel true to split the passes across threads
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Gets the parallel flag.
+   *
+   * @return true if the passes are split across threads
+   */
+  public boolean isParallel() {
+    return pool!=null;
+  }
+
+  /**
+   * Sets the number of columns that are copied into a contiguous tile during the column pass.
+   *
+   * A tile of 8 to 32 columns keeps the column pass in cache for large arrays.
+   * Zero (the default) transforms the columns in place.
+   *
+   * @param size the number of columns per tile
+   */
+  public void setColumnBlockSize(int size) {
+    blockSize = Math.max(0, Math.min(size, ncols));
+  }
+
+  /**
+   * Gets the number of columns that are copied into a contiguous tile during the column pass.
+   *
+   * @return the number of columns per tile; zero if columns are transformed in place
+   */
+  public int getColumnBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Transforms columns start to end-1 of the rows that begin at offset by copying tiles
+   * of columns into a contiguous buffer.
+   *
+   * @return the tile buffer, which is allocated if the given buffer is too small
+   */
+  static double[] columnPass(FFT fft, double[] data, int offset, int rowspan, int sign, int start, int end, int block, double[] tile) {
+    int nrows = fft.getN(), span = 2*nrows;
+    if((tile==null)||(tile.length<block*span)) {
+      tile = new double[block*span];
+    }
+    for(int j0 = start; j0<end; j0 += block) {
+      int nb = Math.min(block, end-j0);
+      for(int i = 0; i<nrows; i++) { // gather: each row segment is contiguous in data
+        int src = offset+i*rowspan+2*j0, dst = 2*i;
+        for(int b = 0; b<nb; b++, src += 2, dst += span) {
+          tile[dst] = data[src];
+          tile[dst+1] = data[src+1];
+        }
+      }
+      for(int b = 0; b<nb; b++) {
+        fft.transform_internal(tile, b*span, 2, sign);
+      }
+      for(int i = 0; i<nrows; i++) { // scatter
+        int dst = offset+i*rowspan+2*j0, src = 2*i;
+        for(int b = 0; b<nb; b++, dst += 2, src += span) {
+          data[dst] = tile[src];
+          data[dst+1] = tile[src+1];
+        }
+      }
+    }
+    return tile;
+  }
+
+  private static PassTask[] createTasks(int nparts, int nlines, int length, boolean rows) {
+    PassTask[] tasks = new PassTask[nparts];
+    for(int k = 0; k<nparts; k++) {
+      tasks[k] = new PassTask(new FFT(length), k*nlines/nparts, (k+1)*nlines/nparts, rows);
+    }
+    return tasks;
+  }
+
+  private void invokePass(PassGroup group, double[] data, int rowspan, int sign) {
+    for(int k = 0, n = group.tasks.length; k<n; k++) {
+      PassTask task = group.tasks[k];
+      task.reinitialize();
+      task.data = data;
+      task.rowspan = rowspan;
+      task.sign = sign;
+      task.block = blockSize;
+    }
+    group.reinitialize();
+    try {
+      pool.invoke(group);
+    } finally {
+      for(int k = 0, n = group.tasks.length; k<n; k++) {
+        group.tasks[k].data = null; // do not hold on to the caller's array
+      }
+    }
+  }
+
+  /**
+   * Transforms a contiguous range of rows or columns with its own FFT.
+   */
+  static class PassTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final FFT fft;
+    final int start, end;
+    final boolean rows;
+    double[] data, tile;
+    int rowspan, sign, block;
+
+    PassTask(FFT fft, int start, int end, boolean rows) {
+      this.fft = fft;
+      this.start = start;
+      this.end = end;
+      this.rows = rows;
+    }
+
+    protected void compute() {
+      if(rows) {
+        for(int i = start; i<end; i++) {
+          fft.transform_internal(data, i*rowspan, 2, sign);
+        }
+      } else if(block>0) {
+        tile = columnPass(fft, data, 0, rowspan, sign, start, end, block, tile);
+      } else {
+        for(int j = start; j<end; j++) {
+          fft.transform_internal(data, 2*j, rowspan, sign);
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Runs all the partitions of a pass and waits for them to finish.
+   */
+  static class PassGroup extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final PassTask[] tasks;
+
+    PassGroup(PassTask[] tasks) {
+      this.tasks = tasks;
+    }
+
+    protected void compute() {
+      invokeAll(tasks);
+    }
+
+  }
+
   /**
    * Compute the (nomalized) inverse FFT of data, leaving it in place.
    * @param data
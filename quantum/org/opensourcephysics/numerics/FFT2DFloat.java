@@ -0,0 +1,259 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * FFT2DFloat computes the FFT of 2 dimensional complex data that is stored in single precision.
+ *
+ * The layout of a float array is the same as the layout of a double array in FFT2D with
+ * rowspan = 2*ncols:
+ * <PRE>
+ *    Re(d[i,j]) = data[2*(i*ncols + j)]
+ *    Im(d[i,j]) = data[2*(i*ncols + j) + 1]
+ * </PRE>
+ * Each row, and each tile of columns, is copied into a double precision buffer, transformed with
+ * the double precision FFT, and rounded back to float. Only the storage is single precision, so
+ * the transform adds one float rounding per pass instead of log(n) roundings, and an array takes half
+ * the memory and half the memory bandwidth of a double array.
+ *
+ * The double precision methods of FFT2D are inherited and are unchanged.
+ */
+public class FFT2DFloat extends FFT2D {
+  double[] row;
+  FloatPassTask[] floatRowTasks, floatColTasks;
+  FloatPassGroup floatRowGroup, floatColGroup;
+
+  /**
+   * Create an FFT for transforming nrows*ncols points of complex, single precision data.
+   * @param nrows
+   * @param ncols
+   */
+  public FFT2DFloat(int nrows, int ncols) {
+    super(nrows, ncols);
+    row = new double[2*ncols];
+    blockSize = Math.min(16, ncols);
+  }
+
+  protected void checkData(float data[]) {
+    if(2*nrows*ncols>data.length) {
+      throw new IllegalArgumentException("The data array is too small for "+nrows+"x"+ncols+" data.length="+data.length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+  }
+
+  /**
+   * Compute the Fast Fourier Transform of data leaving the result in data.
+   *  The array data must be dimensioned (at least) 2*nrows*ncols, consisting of
+   *  alternating real and imaginary parts.
+   * @param data
+   */
+  public void transform(float data[]) {
+    checkData(data);
+    if(pool!=null) {
+      invokePass(floatRowGroup, data, FFT.FORWARD);
+      invokePass(floatColGroup, data, FFT.FORWARD);
+      return;
+    }
+    row = rowPass(rowFFT, data, FFT.FORWARD, 0, nrows, row);
+    tile = columnPass(colFFT, data, ncols, FFT.FORWARD, 0, ncols, Math.max(1, blockSize), tile);
+  }
+
+  /**
+   * Compute the (unnomalized) inverse FFT of data, leaving it in place.
+   * @param data
+   */
+  public void backtransform(float data[]) {
+    checkData(data);
+    if(pool!=null) {
+      invokePass(floatColGroup, data, FFT.BACKWARD);
+      invokePass(floatRowGroup, data, FFT.BACKWARD);
+      return;
+    }
+    tile = columnPass(colFFT, data, ncols, FFT.BACKWARD, 0, ncols, Math.max(1, blockSize), tile);
+    row = rowPass(rowFFT, data, FFT.BACKWARD, 0, nrows, row);
+  }
+
+  /**
+   * Compute the (nomalized) inverse FFT of data, leaving it in place.
+   * @param data
+   */
+  public void inverse(float data[]) {
+    backtransform(data);
+    float norm = (float) (1.0/((double) nrows*ncols));
+    for(int i = 0, n = 2*nrows*ncols; i<n; i++) {
+      data[i] *= norm;
+    }
+  }
+
+  /**
+   * Sets the pool used to split the row and column passes across threads.
+   *
+   * @param pool the ForkJoinPool or null
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    super.setThreadPool(pool);
+    if(pool==null) {
+      floatRowTasks = floatColTasks = null;
+      floatRowGroup = floatColGroup = null;
+      return;
+    }
+    int np = Math.max(1, pool.getParallelism());
+    floatRowTasks = createTasks(Math.min(np, nrows), nrows, ncols, true);
+    floatColTasks = createTasks(Math.min(np, ncols), ncols, nrows, false);
+    floatRowGroup = new FloatPassGroup(floatRowTasks);
+    floatColGroup = new FloatPassGroup(floatColTasks);
+  }
+
+  /**
+   * Transforms rows start to end-1 of data in a double precision buffer.
+   *
+   * @return the row buffer, which is allocated if the given buffer is too small
+   */
+  static double[] rowPass(FFT fft, float[] data, int sign, int start, int end, double[] row) {
+    int span = 2*fft.getN();
+    if((row==null)||(row.length<span)) {
+      row = new double[span];
+    }
+    for(int i = start; i<end; i++) {
+      int offset = i*span;
+      for(int k = 0; k<span; k++) {
+        row[k] = data[offset+k];
+      }
+      fft.transform_internal(row, 0, 2, sign);
+      for(int k = 0; k<span; k++) {
+        data[offset+k] = (float) row[k];
+      }
+    }
+    return row;
+  }
+
+  /**
+   * Transforms columns start to end-1 of data by copying tiles of columns into a double precision buffer.
+   *
+   * @return the tile buffer, which is allocated if the given buffer is too small
+   */
+  static double[] columnPass(FFT fft, float[] data, int ncols, int sign, int start, int end, int block, double[] tile) {
+    int nrows = fft.getN(), span = 2*nrows, rowspan = 2*ncols;
+    if((tile==null)||(tile.length<block*span)) {
+      tile = new double[block*span];
+    }
+    for(int j0 = start; j0<end; j0 += block) {
+      int nb = Math.min(block, end-j0);
+      for(int i = 0; i<nrows; i++) { // gather
+        int src = i*rowspan+2*j0, dst = 2*i;
+        for(int b = 0; b<nb; b++, src += 2, dst += span) {
+          tile[dst] = data[src];
+          tile[dst+1] = data[src+1];
+        }
+      }
+      for(int b = 0; b<nb; b++) {
+        fft.transform_internal(tile, b*span, 2, sign);
+      }
+      for(int i = 0; i<nrows; i++) { // scatter
+        int dst = i*rowspan+2*j0, src = 2*i;
+        for(int b = 0; b<nb; b++, dst += 2, src += span) {
+          data[dst] = (float) tile[src];
+          data[dst+1] = (float) tile[src+1];
+        }
+      }
+    }
+    return tile;
+  }
+
+  private static FloatPassTask[] createTasks(int nparts, int nlines, int length, boolean rows) {
+    FloatPassTask[] tasks = new FloatPassTask[nparts];
+    for(int k = 0; k<nparts; k++) {
+      tasks[k] = new FloatPassTask(new FFT(length), k*nlines/nparts, (k+1)*nlines/nparts, rows);
+    }
+    return tasks;
+  }
+
+  private void invokePass(FloatPassGroup group, float[] data, int sign) {
+    for(int k = 0, n = group.tasks.length; k<n; k++) {
+      FloatPassTask task = group.tasks[k];
+      task.reinitialize();
+      task.data = data;
+      task.ncols = ncols;
+      task.sign = sign;
+      task.block = Math.max(1, blockSize);
+    }
+    group.reinitialize();
+    try {
+      pool.invoke(group);
+    } finally {
+      for(int k = 0, n = group.tasks.length; k<n; k++) {
+        group.tasks[k].data = null; // do not hold on to the caller's array
+      }
+    }
+  }
+
+  static class FloatPassTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final FFT fft;
+    final int start, end;
+    final boolean rows;
+    float[] data;
+    double[] buffer;
+    int ncols, sign, block;
+
+    FloatPassTask(FFT fft, int start, int end, boolean rows) {
+      this.fft = fft;
+      this.start = start;
+      this.end = end;
+      this.rows = rows;
+    }
+
+    protected void compute() {
+      if(rows) {
+        buffer = rowPass(fft, data, sign, start, end, buffer);
+      } else {
+        buffer = columnPass(fft, data, ncols, sign, start, end, block, buffer);
+      }
+    }
+
+  }
+
+  static class FloatPassGroup extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final FloatPassTask[] tasks;
+
+    FloatPassGroup(FloatPassTask[] tasks) {
+      this.tasks = tasks;
+    }
+
+    protected void compute() {
+      invokeAll(tasks);
+    }
+
+  }
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -0,0 +1,387 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * FFT3D computes the FFT of 3 dimensional complex, double precision data.
+ *
+ * The data is stored in a 1-dimensional array in Row-Major order with the last index varying fastest.
+ * The physical layout in the array data, of the mathematical data d[i,j,k] is as follows:
+ * <PRE>
+ *    Re(d[i,j,k]) = data[2*((i*n2 + j)*n3 + k)]
+ *    Im(d[i,j,k]) = data[2*((i*n2 + j)*n3 + k) + 1]
+ * </PRE>
+ * The transformed data is returned in the original data array in
+ * <a href="package-summary.html#wraparound">wrap-around</A> order along each dimension.
+ *
+ * The transform along the last two indices is done plane by plane, and the transform along the
+ * first index treats the data as an n1 x (n2*n3) array and transforms its columns in tiles.
+ * Both passes can be split across the threads of a ForkJoinPool by calling setThreadPool.
+ * The parallel result is identical to the serial result.
+ *
+ * @version 1.0
+ */
+public class FFT3D {
+  static final double PI2 = 2*Math.PI;
+  int n1, n2, n3;
+  int blockSize = 16; // number of columns in a tile; 0 transforms columns in place
+  ForkJoinPool pool;  // null for a serial transform
+  PassTask[] planeTasks, columnTasks;
+  PassGroup planeGroup, columnGroup;
+  PassTask serialTask;
+
+  /**
+   * Create an FFT for transforming n1*n2*n3 points of Complex, double precision data.
+   * @param n1
+   * @param n2
+   * @param n3
+   */
+  public FFT3D(int n1, int n2, int n3) {
+    if((n1<=0)||(n2<=0)||(n3<=0)) {
+      throw new IllegalArgumentException("The array dimensions >=0 : "+n1+","+n2+","+n3); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+    if(2L*n1*n2*n3>Integer.MAX_VALUE-8) {
+      throw new IllegalArgumentException("The array is too large for a single Java array: "+n1+"x"+n2+"x"+n3); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+    this.n1 = n1;
+    this.n2 = n2;
+    this.n3 = n3;
+    serialTask = new PassTask(this, 0, 0);
+  }
+
+  protected void checkData(double data[]) {
+    if(2*n1*n2*n3>data.length) {
+      throw new IllegalArgumentException("The data array is too small for "+n1+"x"+n2+"x"+n3+" data.length="+data.length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+  }
+
+  /**
+   * Compute the Fast Fourier Transform of data leaving the result in data.
+   *  The array data must be dimensioned (at least) 2*n1*n2*n3, consisting of
+   *  alternating real and imaginary parts.
+   * @param data
+   */
+  public void transform(double data[]) {
+    checkData(data);
+    runPlanes(data, FFT.FORWARD);
+    runColumns(data, FFT.FORWARD);
+  }
+
+  /**
+   * Compute the (unnomalized) inverse FFT of data, leaving it in place.
+   * @param data
+   */
+  public void backtransform(double data[]) {
+    checkData(data);
+    runColumns(data, FFT.BACKWARD);
+    runPlanes(data, FFT.BACKWARD);
+  }
+
+  /**
+   * Compute the (nomalized) inverse FFT of data, leaving it in place.
+   * @param data
+   */
+  public void inverse(double data[]) {
+    backtransform(data);
+    double norm = 1.0/((double) n1*n2*n3);
+    for(int i = 0, n = 2*n1*n2*n3; i<n; i++) {
+      data[i] *= norm;
+    }
+  }
+
+  /**
+   * Sets the pool used to split the passes across threads.
+   *
+   * The planes (and then the columns along the first index) are divided into one partition
+   * per thread of the pool. A null pool restores the serial transform.
+   *
+   * @param pool the ForkJoinPool or null
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+    if(pool==null) {
+      planeTasks = columnTasks = null;
+      planeGroup = columnGroup = null;
+      return;
+    }
+    int np = Math.max(1, pool.getParallelism());
+    int nplanes = Math.min(np, n1), ncolumns = Math.min(np, n2*n3);
+    planeTasks = new PassTask[nplanes];
+    for(int p = 0; p<nplanes; p++) {
+      planeTasks[p] = new PassTask(this, p*n1/nplanes, (p+1)*n1/nplanes);
+    }
+    columnTasks = new PassTask[ncolumns];
+    for(int p = 0; p<ncolumns; p++) {
+      columnTasks[p] = new PassTask(this, (int) ((long) p*n2*n3/ncolumns), (int) ((long) (p+1)*n2*n3/ncolumns));
+    }
+    planeGroup = new PassGroup(planeTasks, true);
+    columnGroup = new PassGroup(columnTasks, false);
+  }
+
+  /**
+   * Gets the pool used to split the passes across threads.
+   *
+   * @return the ForkJoinPool or null if the transform is serial
+   */
+  public ForkJoinPool getThreadPool() {
+    return pool;
+  }
+
+  /**
+   * Enables or disables parallel transforms using the common ForkJoinPool.
+   *
+   * @param parallel true to split the passes across threads
+   */
+  public void setParallel(boolean parallel) {
+    setThreadPool(parallel ? ForkJoinPool.commonPool() : null);
+  }
+
+  /**
+   * Gets the parallel flag.
+   *
+   * @return true if the passes are split across threads
+   */
+  public boolean isParallel() {
+    return pool!=null;
+  }
+
+  /**
+   * Sets the number of columns that are copied into a contiguous tile for the strided passes.
+   *
+   * Zero transforms the columns in place.
+   *
+   * @param size the number of columns per tile
+   */
+  public void setColumnBlockSize(int size) {
+    blockSize = Math.max(0, size);
+  }
+
+  /**
+   * Gets the number of columns that are copied into a contiguous tile for the strided passes.
+   *
+   * @return the number of columns per tile
+   */
+  public int getColumnBlockSize() {
+    return blockSize;
+  }
+
+  private void runPlanes(double[] data, int sign) {
+    if(pool==null) {
+      serialTask.block = blockSize;
+      serialTask.planes(data, sign, 0, n1);
+      return;
+    }
+    invokePass(planeGroup, data, sign);
+  }
+
+  private void runColumns(double[] data, int sign) {
+    if(pool==null) {
+      serialTask.block = blockSize;
+      serialTask.columns(data, sign, 0, n2*n3);
+      return;
+    }
+    invokePass(columnGroup, data, sign);
+  }
+
+  private void invokePass(PassGroup group, double[] data, int sign) {
+    for(int k = 0, n = group.tasks.length; k<n; k++) {
+      PassTask task = group.tasks[k];
+      task.reinitialize();
+      task.data = data;
+      task.sign = sign;
+      task.planes = group.planes;
+      task.block = blockSize;
+    }
+    group.reinitialize();
+    try {
+      pool.invoke(group);
+    } finally {
+      for(int k = 0, n = group.tasks.length; k<n; k++) {
+        group.tasks[k].data = null; // do not hold on to the caller's array
+      }
+    }
+  }
+
+  /**
+   * Gets an array containing the angular frequencies (wavenumbers) along the first index in wrap-around order.
+   * The first data point is at xmin and the last data point is at xmax.
+   *
+   * @param xmin
+   * @param xmax
+   * @return the array of frequencies
+   */
+  public double[] getWrappedOmegaX(double xmin, double xmax) {
+    return getWrappedFreq((xmax-xmin)/(n1-n1%2)/PI2, n1);
+  }
+
+  /**
+   * Gets an array containing the angular frequencies (wavenumbers) along the second index in wrap-around order.
+   * The first data point is at ymin and the last data point is at ymax.
+   *
+   * @param ymin
+   * @param ymax
+   * @return the array of frequencies
+   */
+  public double[] getWrappedOmegaY(double ymin, double ymax) {
+    return getWrappedFreq((ymax-ymin)/(n2-n2%2)/PI2, n2);
+  }
+
+  /**
+   * Gets an array containing the angular frequencies (wavenumbers) along the third index in wrap-around order.
+   * The first data point is at zmin and the last data point is at zmax.
+   *
+   * @param zmin
+   * @param zmax
+   * @return the array of frequencies
+   */
+  public double[] getWrappedOmegaZ(double zmin, double zmax) {
+    return getWrappedFreq((zmax-zmin)/(n3-n3%2)/PI2, n3);
+  }
+
+  /**
+   * Gets an array containing the frequencies in wrap-around order.
+   * Samples in the data are separated by delta.
+   *
+   * @param delta
+   * @return the array of frequencies
+   */
+  public double[] getWrappedFreq(double delta, int n) {
+    double[] freq = new double[n];
+    double f = -0.5/delta, df = -2*f/(n-n%2);
+    for(int i = 0; i<n; i++) {
+      freq[i] = (i<(n+1)/2) ? i*df : (i-n)*df;
+    }
+    return freq;
+  }
+
+  /**
+   * Gets the maximum frequency given the domain and the number of points.
+   *
+   * @param min double
+   * @param max double
+   * @param n int
+   * @return double
+   */
+  public double getFreqMax(double min, double max, int n) {
+    return((n+1)/2-1)/(max-min);
+  }
+
+  /**
+   * Transforms a range of planes or a range of columns along the first index.
+   * Every task owns its FFTs and tile buffer.
+   */
+  static class PassTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final FFT fft1, fft2, fft3;
+    final int start, end;
+    final int n1, n2, n3;
+    double[] data, tile;
+    int sign, block;
+    boolean planes;
+
+    PassTask(FFT3D owner, int start, int end) {
+      n1 = owner.n1;
+      n2 = owner.n2;
+      n3 = owner.n3;
+      fft1 = new FFT(n1);
+      fft2 = new FFT(n2);
+      fft3 = new FFT(n3);
+      this.start = start;
+      this.end = end;
+    }
+
+    protected void compute() {
+      if(planes) {
+        planes(data, sign, start, end);
+      } else {
+        columns(data, sign, start, end);
+      }
+    }
+
+    /**
+     * Transforms the last two indices of planes i0 to i1-1.
+     */
+    void planes(double[] data, int sign, int i0, int i1) {
+      int planespan = 2*n2*n3, rowspan = 2*n3;
+      for(int i = i0; i<i1; i++) {
+        int offset = i*planespan;
+        for(int j = 0; j<n2; j++) {
+          fft3.transform_internal(data, offset+j*rowspan, 2, sign);
+        }
+        if(block>0) {
+          tile = FFT2D.columnPass(fft2, data, offset, rowspan, sign, 0, n3, Math.min(block, n3), tile);
+        } else {
+          for(int k = 0; k<n3; k++) {
+            fft2.transform_internal(data, offset+2*k, rowspan, sign);
+          }
+        }
+      }
+    }
+
+    /**
+     * Transforms the first index of columns c0 to c1-1 of the n1 x (n2*n3) array.
+     */
+    void columns(double[] data, int sign, int c0, int c1) {
+      int rowspan = 2*n2*n3;
+      if(block>0) {
+        tile = FFT2D.columnPass(fft1, data, 0, rowspan, sign, c0, c1, Math.min(block, c1-c0), tile);
+      } else {
+        for(int c = c0; c<c1; c++) {
+          fft1.transform_internal(data, 2*c, rowspan, sign);
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Runs all the partitions of a pass and waits for them to finish.
+   */
+  static class PassGroup extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final PassTask[] tasks;
+    final boolean planes;
+
+    PassGroup(PassTask[] tasks, boolean planes) {
+      this.tasks = tasks;
+      this.planes = planes;
+    }
+
+    protected void compute() {
+      invokeAll(tasks);
+    }
+
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -0,0 +1,133 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FFTPlan holds the factors and the twiddle table used by the mixed radix FFT for n points.
+ *
+ * Plans are created once per transform length and cached, so every FFT (and therefore every
+ * FFT2D, FFTReal and FFTReal2D) of the same length shares the same tables.  A plan is never
+ * modified after it is created and may be used by any number of threads.  The twiddle table
+ * does not depend on the direction of the transform; the sign is applied when the table is read.
+ *
+ * @version 1.0
+ */
+public final class FFTPlan {
+  static final int[] AVAILABLE_FACTORS = {7, 6, 5, 4, 3, 2};
+  private static final ConcurrentHashMap<Integer, FFTPlan> cache = new ConcurrentHashMap<Integer, FFTPlan>();
+  final int n;
+  final int[] factors;
+  // Reversed the last 2 levels of the twiddle array compared to what the C version had.
+  final double[][][] twiddle;
+
+  private FFTPlan(int n) {
+    if(n<=0) {
+      throw new IllegalArgumentException("The transform length must be >0 : "+n); //$NON-NLS-1$
+    }
+    this.n = n;
+    factors = FFT.factor(n, AVAILABLE_FACTORS);
+    double d_theta = -2.0*Math.PI/(n);
+    int product = 1;
+    twiddle = new double[factors.length][][];
+    for(int i = 0; i<factors.length; i++) {
+      int factor = factors[i];
+      int product_1 = product;      /* product_1 = p_(i-1) */
+      product *= factor;
+      int q = n/product;
+      twiddle[i] = new double[q+1][2*(factor-1)];
+      double twid[][] = twiddle[i];
+      for(int j = 1; j<factor; j++) {
+        twid[0][2*(j-1)] = 1.0;
+        twid[0][2*(j-1)+1] = 0.0;
+      }
+      for(int k = 1; k<=q; k++) {
+        int m = 0;
+        for(int j = 1; j<factor; j++) {
+          // int m = (k*j*product_1) % n;
+          m += k*product_1;
+          m %= n;
+          double theta = d_theta*m; /* d_theta*j*k*p_(i-1) */
+          twid[k][2*(j-1)] = Math.cos(theta);
+          twid[k][2*(j-1)+1] = Math.sin(theta);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the plan for n complex data points, creating it if it is not in the cache.
+   *
+   * @param n the number of complex data points
+   * @return the shared plan
+   */
+  public static FFTPlan getPlan(int n) {
+    Integer key = Integer.valueOf(n);
+    FFTPlan plan = cache.get(key);
+    if(plan==null) {
+      plan = new FFTPlan(n);
+      FFTPlan previous = cache.putIfAbsent(key, plan);
+      if(previous!=null) {
+        plan = previous;
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Removes all plans from the cache.
+   *
+   * FFTs that already hold a plan keep using it.
+   */
+  public static void clearCache() {
+    cache.clear();
+  }
+
+  /**
+   * Gets the number of complex data points.
+   *
+   * @return int
+   */
+  public int getN() {
+    return n;
+  }
+
+  /**
+   * Gets a copy of the factors of n in the order in which the passes are applied.
+   *
+   * @return the factors
+   */
+  public int[] getFactors() {
+    return factors.clone();
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -0,0 +1,322 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+
+/**
+ * FFTReal2D computes the FFT of 2 dimensional real, double precision data.
+ *
+ * The real data is stored in a 1-dimensional array of length nrows*ncols in Row-Major order.
+ * Because the transform of real data is Hermitian, only the columns 0 through ncols/2 of the
+ * spectrum are stored. The spectrum is a 1-dimensional array of length nrows*(ncols+2) in
+ * Row-Major order:
+ * <PRE>
+ *    Re(d[i,j]) = spectrum[i*(ncols+2) + 2*j]
+ *    Im(d[i,j]) = spectrum[i*(ncols+2) + 2*j + 1]     0 &lt;= j &lt;= ncols/2
+ * </PRE>
+ * The rows of the spectrum are in <a href="package-summary.html#wraparound">wrap-around</A> order
+ * and the columns contain the non-negative frequencies in natural order.
+ *
+ * Each row is transformed as ncols/2 complex points followed by a split into the even and
+ * odd samples, so the number of columns must be even.
+ *
+ * @version 1.0
+ */
+public class FFTReal2D {
+  static final double PI2 = 2*Math.PI;
+  int nrows;
+  int ncols;
+  int rowspan;       // length of a spectrum row
+  FFT rowFFT, colFFT;
+  double[] wr, wi;   // cos and sin of 2*pi*k/ncols
+  double[] arow;     // temp storage for a spectrum row
+
+  /**
+   * Create an FFT for transforming nrows*ncols points of real, double precision data.
+   * @param nrows
+   * @param ncols  must be even
+   */
+  public FFTReal2D(int nrows, int ncols) {
+    if((nrows<=0)||(ncols<=0)) {
+      throw new IllegalArgumentException("The array dimensions >=0 : "+nrows+","+ncols); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    if(ncols%2!=0) {
+      throw new IllegalArgumentException(ncols+" is not even"); //$NON-NLS-1$
+    }
+    this.nrows = nrows;
+    this.ncols = ncols;
+    rowspan = ncols+2;
+    arow = new double[rowspan];
+    rowFFT = new FFT(ncols/2);
+    colFFT = new FFT(nrows);
+    int m = ncols/2;
+    wr = new double[m+1];
+    wi = new double[m+1];
+    for(int k = 0; k<=m; k++) {
+      wr[k] = Math.cos(PI2*k/ncols);
+      wi[k] = Math.sin(PI2*k/ncols);
+    }
+  }
+
+  /**
+   * Gets the length of the spectrum array, nrows*(ncols+2).
+   *
+   * @return the length
+   */
+  public int getSpectrumLength() {
+    return nrows*rowspan;
+  }
+
+  /**
+   * Computes the Fast Fourier Transform of the real data leaving the half-spectrum in spectrum.
+   *
+   * @param data  real data dimensioned (at least) nrows*ncols
+   * @param spectrum  complex data dimensioned (at least) nrows*(ncols+2)
+   * @return the spectrum
+   */
+  public double[] transform(double[] data, double[] spectrum) {
+    checkData(data, spectrum);
+    for(int i = 0; i<nrows; i++) {
+      System.arraycopy(data, i*ncols, spectrum, i*rowspan, ncols);
+      realRow(spectrum, i*rowspan);
+    }
+    for(int j = 0, m = ncols/2; j<=m; j++) {
+      colFFT.transform_internal(spectrum, 2*j, rowspan, FFT.FORWARD);
+    }
+    return spectrum;
+  }
+
+  /**
+   * Computes the (unnomalized) inverse FFT of the half-spectrum leaving the real result in data.
+   *
+   * The spectrum is overwritten.
+   *
+   * @param spectrum  complex data dimensioned (at least) nrows*(ncols+2)
+   * @param data  real data dimensioned (at least) nrows*ncols
+   * @return the real data
+   */
+  public double[] backtransform(double[] spectrum, double[] data) {
+    checkData(data, spectrum);
+    for(int j = 0, m = ncols/2; j<=m; j++) {
+      colFFT.transform_internal(spectrum, 2*j, rowspan, FFT.BACKWARD);
+    }
+    for(int i = 0; i<nrows; i++) {
+      complexRow(spectrum, i*rowspan);
+      System.arraycopy(spectrum, i*rowspan, data, i*ncols, ncols);
+    }
+    return data;
+  }
+
+  /**
+   * Computes the (nomalized) inverse FFT of the half-spectrum leaving the real result in data.
+   *
+   * The spectrum is overwritten.
+   *
+   * @param spectrum  complex data dimensioned (at least) nrows*(ncols+2)
+   * @param data  real data dimensioned (at least) nrows*ncols
+   * @return the real data
+   */
+  public double[] inverse(double[] spectrum, double[] data) {
+    backtransform(spectrum, data);
+    double norm = 1.0/((double) nrows*ncols);
+    for(int i = 0, n = nrows*ncols; i<n; i++) {
+      data[i] *= norm;
+    }
+    return data;
+  }
+
+  protected void checkData(double[] data, double[] spectrum) {
+    if(data.length<nrows*ncols) {
+      throw new IllegalArgumentException("The data array is too small for "+nrows+"x"+ncols+" data.length="+data.length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+    if(spectrum.length<nrows*rowspan) {
+      throw new IllegalArgumentException("The spectrum array is too small for "+nrows+"x"+rowspan+" spectrum.length="+spectrum.length); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+  }
+
+  /**
+   * Transforms the ncols real values starting at offset into ncols/2+1 complex values.
+   *
+   * The real values are treated as ncols/2 complex points z[k] = x[2k] + i x[2k+1].
+   */
+  void realRow(double[] d, int offset) {
+    int m = ncols/2;
+    rowFFT.transform_internal(d, offset, 2, FFT.FORWARD);
+    double zr = d[offset], zi = d[offset+1];
+    d[offset] = zr+zi;
+    d[offset+1] = 0;
+    d[offset+ncols] = zr-zi;
+    d[offset+ncols+1] = 0;
+    for(int k = 1; k<=m/2; k++) {
+      int ik = offset+2*k, imk = offset+2*(m-k);
+      double ar = d[ik], ai = d[ik+1];   // Z[k]
+      double br = d[imk], bi = d[imk+1]; // Z[m-k]
+      // even part Fe[k] = (Z[k]+conj(Z[m-k]))/2 and odd part Fo[k] = (Z[k]-conj(Z[m-k]))/2i
+      double er = 0.5*(ar+br), ei = 0.5*(ai-bi);
+      double or = 0.5*(ai+bi), oi = -0.5*(ar-br);
+      // X[k] = Fe[k] + W^k Fo[k] with W = exp(-2 pi i/ncols)
+      double tr = wr[k]*or+wi[k]*oi, ti = wr[k]*oi-wi[k]*or;
+      d[ik] = er+tr;
+      d[ik+1] = ei+ti;
+      // X[m-k] = conj(Fe[k]) - W^(m-k) conj(Fo[k]) = conj(Fe[k] - W^k Fo[k])
+      if(k!=m-k) {
+        d[imk] = er-tr;
+        d[imk+1] = -(ei-ti);
+      }
+    }
+  }
+
+  /**
+   * Transforms the ncols/2+1 complex values starting at offset into ncols real values (times ncols).
+   */
+  void complexRow(double[] d, int offset) {
+    int m = ncols/2;
+    double x0 = d[offset], xm = d[offset+ncols];
+    d[offset] = x0+xm;
+    d[offset+1] = x0-xm;
+    for(int k = 1; k<=m/2; k++) {
+      int ik = offset+2*k, imk = offset+2*(m-k);
+      double ar = d[ik], ai = d[ik+1];   // X[k]
+      double br = d[imk], bi = d[imk+1]; // X[m-k]
+      // Fe[k] = X[k]+conj(X[m-k]) and Fo[k] = (X[k]-conj(X[m-k])) conj(W^k)
+      double er = ar+br, ei = ai-bi;
+      double dr = ar-br, di = ai+bi;
+      double or = wr[k]*dr-wi[k]*di, oi = wr[k]*di+wi[k]*dr;
+      // Z[k] = Fe[k] + i Fo[k] and Z[m-k] = conj(Fe[k]) + i conj(Fo[k])
+      d[ik] = er-oi;
+      d[ik+1] = ei+or;
+      if(k!=m-k) {
+        d[imk] = er+oi;
+        d[imk+1] = -ei+or;
+      }
+    }
+    rowFFT.transform_internal(d, offset, 2, FFT.BACKWARD);
+  }
+
+  /**
+   * Gets an array containing the angular frequencies (wavenumbers) in wrap-around order
+   * along the rows of the spectrum.
+   * The first data point is at xmin and the last data point is at xmax.
+   *
+   * @param xmin
+   * @param xmax
+   * @return the array of frequencies
+   */
+  public double[] getWrappedOmegaX(double xmin, double xmax) {
+    double delta = (xmax-xmin)/(nrows-nrows%2)/PI2;
+    double[] freq = new double[nrows];
+    double df = 1.0/delta/(nrows-nrows%2);
+    for(int i = 0; i<nrows; i++) {
+      freq[i] = (i<(nrows+1)/2) ? i*df : (i-nrows)*df;
+    }
+    return freq;
+  }
+
+  /**
+   * Gets an array containing the non-negative angular frequencies (wavenumbers) of the
+   * ncols/2+1 columns of the spectrum.
+   * The first data point is at ymin and the last data point is at ymax.
+   *
+   * @param ymin
+   * @param ymax
+   * @return the array of frequencies
+   */
+  public double[] getWrappedOmegaY(double ymin, double ymax) {
+    double delta = (ymax-ymin)/ncols/PI2;
+    int m = ncols/2;
+    double[] freq = new double[m+1];
+    double df = 1.0/delta/ncols;
+    for(int j = 0; j<=m; j++) {
+      freq[j] = j*df;
+    }
+    return freq;
+  }
+
+  /**
+   * Gets an array containing the angular frequencies (wavenumbers) in natural order
+   * along the rows of the spectrum.
+   * The first data point is at xmin and the last data point is at xmax.
+   *
+   * @param xmin
+   * @param xmax
+   * @return the array of frequencies
+   */
+  public double[] getNaturalOmegaX(double xmin, double xmax) {
+    double delta = (xmax-xmin)/(nrows-nrows%2)/PI2;
+    double[] freq = new double[nrows];
+    double f = -0.5/delta, df = -2*f/(nrows-nrows%2);
+    for(int i = 0; i<nrows; i++) {
+      freq[i] = f;
+      f += df;
+    }
+    return freq;
+  }
+
+  /**
+   * Reorders the rows of the spectrum from most negative frequency to most positive
+   * frequency and normalizes the spectrum leaving the result in spectrum.
+   *
+   * The columns of the half-spectrum are already in natural order.
+   * @param spectrum
+   */
+  public void toNaturalOrder(double[] spectrum) {
+    // rotate the rows by (nrows+1)/2 using cycles so that only one row of temp storage is needed
+    int shift = (nrows+1)/2;
+    int ncycles = gcd(nrows, shift);
+    for(int start = 0; start<ncycles; start++) {
+      System.arraycopy(spectrum, start*rowspan, arow, 0, rowspan);
+      int dst = start;
+      while(true) {
+        int src = (dst+shift)%nrows;
+        if(src==start) {
+          break;
+        }
+        System.arraycopy(spectrum, src*rowspan, spectrum, dst*rowspan, rowspan);
+        dst = src;
+      }
+      System.arraycopy(arow, 0, spectrum, dst*rowspan, rowspan);
+    }
+    double norm = 1.0/((double) nrows*ncols);
+    for(int i = 0, n = nrows*rowspan; i<n; i++) { // normalize
+      spectrum[i] *= norm;
+    }
+  }
+
+  private static int gcd(int a, int b) {
+    while(b!=0) {
+      int t = a%b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
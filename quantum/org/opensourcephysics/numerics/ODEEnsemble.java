@@ -0,0 +1,310 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ODEEnsemble integrates many independent ODEs, each with its own solver from ODESolverFactory,
+ * on the threads of a work-stealing ForkJoinPool.
+ *
+ * Every member keeps its own time. advance(tEnd) steps every member until its time reaches tEnd;
+ * the last step of a member is shortened so that it ends exactly at tEnd. Adaptive solvers choose
+ * their own step sizes, so the members that need many small steps are balanced across threads by
+ * work stealing. The states can be sampled at fixed intervals of time into one flat array per member.
+ */
+public class ODEEnsemble {
+  /**
+   * Creates the ODE of each member of an ensemble.
+   */
+  public interface Factory {
+    /**
+     * Creates the ODE of a member.
+     *
+     * @param index the index of the member
+     * @return the ODE
+     */
+    public ODE createODE(int index);
+
+  }
+
+  final ODE[] odes;
+  final ODESolver[] solvers;
+  final double[] time;
+  final int[] errorCode;
+  double stepSize = 0.01;
+  double sampleInterval = 0;  // zero disables sampling
+  int maxSamples;
+  double[][] samples;         // samples[m][k*numEqn+i] is variable i of member m at time k*sampleInterval
+  int[] sampleCount;
+  ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  /**
+   * Constructs an ensemble of size members.
+   *
+   * @param factory    creates the ODE of each member
+   * @param size       the number of members
+   * @param solverName the name of the solver, see ODESolverFactory
+   */
+  public ODEEnsemble(Factory factory, int size, String solverName) {
+    odes = new ODE[size];
+    solvers = new ODESolver[size];
+    time = new double[size];
+    errorCode = new int[size];
+    for(int m = 0; m<size; m++) {
+      odes[m] = factory.createODE(m);
+      solvers[m] = ODESolverFactory.createODESolver(odes[m], solverName);
+      if(solvers[m]==null) {
+        throw new IllegalArgumentException("Unknown ODE solver: "+solverName); //$NON-NLS-1$
+      }
+    }
+    initialize(stepSize);
+  }
+
+  /**
+   * Initializes the solvers, sets the time of every member to zero and clears the samples.
+   *
+   * @param _stepSize the step size; the initial step size of adaptive solvers
+   */
+  public void initialize(double _stepSize) {
+    stepSize = _stepSize;
+    for(int m = 0; m<solvers.length; m++) {
+      solvers[m].initialize(stepSize);
+      time[m] = 0;
+      errorCode[m] = ODEAdaptiveSolver.NO_ERROR;
+    }
+    if(sampleInterval>0) {
+      samples = new double[odes.length][];
+      sampleCount = new int[odes.length];
+      for(int m = 0; m<odes.length; m++) {
+        samples[m] = new double[maxSamples*odes[m].getState().length];
+        record(m);
+      }
+    } else {
+      samples = null;
+      sampleCount = null;
+    }
+  }
+
+  /**
+   * Sets the tolerance of the members whose solvers are adaptive.
+   *
+   * @param tol the tolerance
+   */
+  public void setTolerance(double tol) {
+    for(int m = 0; m<solvers.length; m++) {
+      if(solvers[m] instanceof ODEAdaptiveSolver) {
+        ((ODEAdaptiveSolver) solvers[m]).setTolerance(tol);
+      }
+    }
+  }
+
+  /**
+   * Records the state of every member at the times k*interval for k = 0 to maxSamples-1.
+   * A zero interval disables sampling. The ensemble is initialized.
+   *
+   * @param interval   the time between samples
+   * @param maxSamples the number of samples
+   */
+  public void setSampling(double interval, int maxSamples) {
+    this.sampleInterval = (maxSamples>0) ? Math.max(0, interval) : 0;
+    this.maxSamples = maxSamples;
+    initialize(stepSize);
+  }
+
+  /**
+   * Sets the pool used to advance the members; null advances the members in the calling thread.
+   *
+   * @param pool the ForkJoinPool or null
+   */
+  public void setThreadPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Advances every member to the given time.
+   *
+   * @param tEnd the time
+   */
+  public void advance(double tEnd) {
+    if(pool==null) {
+      for(int m = 0; m<odes.length; m++) {
+        advanceMember(m, tEnd);
+      }
+    } else {
+      pool.invoke(new MemberTask(this, 0, odes.length, tEnd));
+    }
+  }
+
+  void advanceMember(int m, double tEnd) {
+    ODESolver solver = solvers[m];
+    boolean adaptive = solver instanceof ODEAdaptiveSolver;
+    double t = time[m];
+    while((t<tEnd)&&(errorCode[m]==ODEAdaptiveSolver.NO_ERROR)) {
+      double target = tEnd;
+      boolean sample = false;
+      if((samples!=null)&&(sampleCount[m]<maxSamples)) {
+        double next = sampleCount[m]*sampleInterval;
+        if(next<=target) {
+          target = next;
+          sample = true;
+        }
+      }
+      double h = solver.getStepSize(), remaining = target-t;
+      boolean shortened = h>=remaining*(1-1.0e-12); // a step within round off of the target ends there
+      if(shortened) {
+        solver.setStepSize(remaining);
+      }
+      double dt = solver.step();
+      if(adaptive&&(((ODEAdaptiveSolver) solver).getErrorCode()!=ODEAdaptiveSolver.NO_ERROR)) {
+        errorCode[m] = ((ODEAdaptiveSolver) solver).getErrorCode();
+      } else if(!(dt>0)) {
+        errorCode[m] = ODEAdaptiveSolver.DID_NOT_CONVERGE;
+      }
+      t += dt;
+      if(shortened) {
+        if(dt>=remaining*(1-1.0e-12)) {
+          t = target; // avoid round off
+        }
+        solver.setStepSize(h);
+      }
+      if(t>=target&&sample) {
+        record(m);
+      }
+    }
+    time[m] = t;
+  }
+
+  void record(int m) {
+    double[] state = odes[m].getState();
+    System.arraycopy(state, 0, samples[m], sampleCount[m]*state.length, state.length);
+    sampleCount[m]++;
+  }
+
+  /**
+   * Gets a copy of the state of every member.
+   *
+   * @return the states indexed by member
+   */
+  public double[][] getStates() {
+    double[][] states = new double[odes.length][];
+    for(int m = 0; m<odes.length; m++) {
+      states[m] = odes[m].getState().clone();
+    }
+    return states;
+  }
+
+  /**
+   * Gets one variable of every member.
+   *
+   * @param i the index of the variable
+   * @return the variable indexed by member
+   */
+  public double[] getVariable(int i) {
+    double[] values = new double[odes.length];
+    for(int m = 0; m<odes.length; m++) {
+      values[m] = odes[m].getState()[i];
+    }
+    return values;
+  }
+
+  /**
+   * Gets the samples of a member; variable i of sample k is at index k*numEqn+i.
+   *
+   * @param m the index of the member
+   * @return the samples or null if sampling is disabled
+   */
+  public double[] getSamples(int m) {
+    return (samples==null) ? null : samples[m];
+  }
+
+  /**
+   * Gets the number of samples recorded for a member.
+   *
+   * @param m the index of the member
+   * @return the number of samples
+   */
+  public int getSampleCount(int m) {
+    return (sampleCount==null) ? 0 : sampleCount[m];
+  }
+
+  public int getSize() {
+    return odes.length;
+  }
+
+  public ODE getODE(int m) {
+    return odes[m];
+  }
+
+  public double getTime(int m) {
+    return time[m];
+  }
+
+  /**
+   * Gets the error code of a member; a member with an error is no longer advanced.
+   *
+   * @param m the index of the member
+   * @return ODEAdaptiveSolver.NO_ERROR or an error code
+   */
+  public int getErrorCode(int m) {
+    return errorCode[m];
+  }
+
+  /**
+   * Advances a range of members, splitting the range in half until a task holds a few members.
+   */
+  static class MemberTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    final ODEEnsemble ensemble;
+    final int start, end;
+    final double tEnd;
+
+    MemberTask(ODEEnsemble ensemble, int start, int end, double tEnd) {
+      this.ensemble = ensemble;
+      this.start = start;
+      this.end = end;
+      this.tEnd = tEnd;
+    }
+
+    protected void compute() {
+      if(end-start>4) {
+        int mid = (start+end)>>>1;
+        invokeAll(new MemberTask(ensemble, start, mid, tEnd), new MemberTask(ensemble, mid, end, tEnd));
+        return;
+      }
+      for(int m = start; m<end; m++) {
+        ensemble.advanceMember(m, tEnd);
+      }
+    }
+
+  }
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -0,0 +1,261 @@
+/*
+ * Open Source Physics software is free software as described near the bottom of this code file.
+ *
+ * For additional information and documentation on Open Source Physics please see:
+ * <http://www.opensourcephysics.org/>
+ */
+
+package org.opensourcephysics.numerics;
+import java.util.Vector;
+
+/**
+ * ODEInterpolationEventSolver finds StateEvents with the dense output of an ODEInterpolationSolver.
+ *
+ * Each step is taken once. If events happen within the step, the time of each event is found
+ * by the Illinois variant of regula falsi on the interpolated state, so locating an event
+ * costs no rate evaluations beyond the one needed to build the interpolant. The earliest event
+ * time wins and every event whose function vanishes at that time acts together, which keeps
+ * simultaneous collisions in billiard or hard-wall models at exactly the same instant.
+ *
+ * Example of use:
+ * <pre>
+ *   solver = new ODEInterpolationEventSolver(anOde, DormandPrince45.class);
+ *   solver.addEvent(aStateEvent);
+ *   // for the rest it works as any other ODESolver.
+ * </pre>
+ */
+public class ODEInterpolationEventSolver implements ODEEventSolver, ODEAdaptiveSolver {
+  /**
+   * Maximum number of root iterations for one event and of event steps within one step.
+   */
+  static final public int MAX = 50;
+  protected int size;
+  protected double[] statea, fa, eventState;
+  protected ODEInterpolationSolver solver;
+  protected TriggerODE triggerOde;
+  protected Vector<StateEvent> eventList = new Vector<StateEvent>();
+  protected Vector<StateEvent> happened = new Vector<StateEvent>();
+  protected int errorCode = ODEAdaptiveSolver.NO_ERROR;
+  protected boolean eventHappened = false;
+
+  /**
+   * Creates a new solver that uses the interpolant of the given solver class for finding the events.
+   *
+   * @param ode The ode to solve
+   * @param solverClass The ODEInterpolationSolver class to use; DormandPrince45 is used if the class
+   * cannot be created, does not interpolate, or its interpolant does not cover the whole step
+   */
+  public ODEInterpolationEventSolver(ODE ode, Class<?> solverClass) {
+    triggerOde = new TriggerODE(ode);
+    try { // Create the solver by reflection
+      Class<?>[] c = {ODE.class};
+      Object[] o = {triggerOde};
+      java.lang.reflect.Constructor<?> constructor = solverClass.getDeclaredConstructor(c);
+      solver = (ODEInterpolationSolver) constructor.newInstance(o);
+    } catch(Exception _exc) {
+      System.err.println("InterpolationEventSolver: Solver class "+solverClass+" is not an interpolation solver."); //$NON-NLS-1$ //$NON-NLS-2$
+      System.err.println("  I will use DormandPrince45 as default solver."); //$NON-NLS-1$
+      solver = new DormandPrince45(triggerOde);
+    }
+  }
+
+  /**
+   *  Adds a StateEvent to the list of events
+   * @param event The event to be added
+   */
+  public void addEvent(StateEvent event) {
+    eventList.add(event);
+  }
+
+  /**
+   *  Removes a StateEvent from the list of events
+   * @param event The event to be removed
+   */
+  public void removeEvent(StateEvent event) {
+    eventList.remove(event);
+  }
+
+  public void initialize(double stepSize) {
+    triggerOde.readRealState();
+    size = triggerOde.getState().length;
+    statea = new double[size];
+    eventState = new double[size];
+    solver.initialize(stepSize);
+  }
+
+  public void setStepSize(double stepSize) {
+    solver.setStepSize(stepSize);
+  }
+
+  public double getStepSize() {
+    return solver.getStepSize();
+  }
+
+  public void setTolerance(double tol) {
+    solver.setTolerance(tol);
+  }
+
+  public double getTolerance() {
+    return solver.getTolerance();
+  }
+
+  /**
+   * Gets the eventHappend flag.  The flag is true if an event occured during the last step.
+   * @return boolean
+   */
+  public boolean getEventHappened() {
+    return eventHappened;
+  }
+
+  public int getErrorCode() {
+    return errorCode;
+  }
+
+  /**
+   * Advances the ODE as usual, except if an event takes place.
+   * Then it finds the event point and applies the actions
+   * @return The actual step taken
+   */
+  public double step() {
+    errorCode = ODEAdaptiveSolver.NO_ERROR;
+    eventHappened = false;
+    double t = 0, origDt = solver.getStepSize();
+    for(int count = 0; count<MAX; count++) {
+      triggerOde.readRealState();
+      System.arraycopy(triggerOde.getState(), 0, statea, 0, size);
+      int nevents = eventList.size();
+      if((fa==null)||(fa.length<nevents)) {
+        fa = new double[nevents];
+      }
+      for(int j = 0; j<nevents; j++) {
+        fa[j] = eventList.elementAt(j).evaluate(statea);
+      }
+      double dt = solver.step();
+      if(Math.abs(solver.getLastStepSize()-dt)>1.0e-12*Math.abs(dt)) { // the interpolant does not cover the step
+        System.err.println("InterpolationEventSolver: Solver class "+solver.getClass()+" does not interpolate over its whole step."); //$NON-NLS-1$ //$NON-NLS-2$
+        System.err.println("  I will use DormandPrince45 instead."); //$NON-NLS-1$
+        triggerOde.setState(statea);
+        DormandPrince45 dp = new DormandPrince45(triggerOde);
+        dp.setTolerance(solver.getTolerance());
+        dp.initialize(origDt-t);
+        solver = dp;
+        dt = solver.step();
+      }
+      double[] state = triggerOde.getState();
+      // find the events that happened and the earliest time at which one of them happened
+      happened.clear();
+      double tEvent = dt;
+      for(int j = 0; j<nevents; j++) {
+        StateEvent evt = eventList.elementAt(j);
+        if(evt.evaluate(state)<=-evt.getTolerance()) {
+          happened.add(evt);
+          tEvent = Math.min(tEvent, findRoot(evt, fa[j], dt, tEvent));
+        }
+      }
+      if(happened.size()==0) {
+        triggerOde.updateRealState();
+        solver.setStepSize(origDt);
+        return t+dt;
+      }
+      eventHappened = true;
+      // move to the event and let every event that is there act
+      solver.interpolate(tEvent, eventState);
+      triggerOde.setState(eventState);
+      triggerOde.updateRealState();
+      t += tEvent;
+      boolean stop = false;
+      for(int j = 0, n = happened.size(); j<n; j++) {
+        StateEvent evt = happened.elementAt(j);
+        if(evt.evaluate(eventState)<evt.getTolerance()) {
+          stop |= evt.action();
+        }
+      }
+      if(stop||(t>=origDt)) {
+        solver.setStepSize(origDt);
+        return t;
+      }
+      solver.setStepSize(origDt-t);
+    }
+    System.err.println("InterpolationEventSolver Warning : more than "+MAX+" events in one step."); //$NON-NLS-1$ //$NON-NLS-2$
+    errorCode = ODEAdaptiveSolver.DID_NOT_CONVERGE;
+    triggerOde.readRealState();
+    solver.setStepSize(origDt);
+    return t;
+  }
+
+  /**
+   * Finds the time of an event within the last step by the Illinois method on the interpolated state.
+   * Only times before limit are of interest because an earlier event has already been found there.
+   *
+   * @param evt the event
+   * @param f0  the value of the event at the start of the step
+   * @param dt  the size of the step
+   * @param limit the earliest event time found so far
+   * @return the time of the event from the start of the step
+   */
+  double findRoot(StateEvent evt, double f0, double dt, double limit) {
+    double tol = evt.getTolerance();
+    if(f0<tol) { // the event is at the start of the step
+      return 0;
+    }
+    double lo = 0, hi = dt, flo = f0, fhi = evt.evaluate(triggerOde.getState());
+    if(limit<dt) { // no need to look beyond an earlier event
+      double f = evt.evaluate(solver.interpolate(limit, eventState));
+      if(f>-tol) { // after or at the earlier event
+        return limit;
+      }
+      hi = limit;
+      fhi = f;
+    }
+    int side = 0;
+    for(int i = 0; i<MAX; i++) {
+      double s = (lo*fhi-hi*flo)/(fhi-flo);
+      double f = evt.evaluate(solver.interpolate(s, eventState));
+      if(Math.abs(f)<tol) {
+        return s;
+      }
+      if(f>0) {
+        lo = s;
+        flo = f;
+        if(side==-1) {
+          fhi /= 2;
+        }
+        side = -1;
+      } else {
+        hi = s;
+        fhi = f;
+        if(side==+1) {
+          flo /= 2;
+        }
+        side = +1;
+      }
+    }
+    errorCode = ODEAdaptiveSolver.BISECTION_EVENT_NOT_FOUND;
+    return hi;
+  }
+
+}
+
+/*
+ * Open Source Physics software is free software; you can redistribute
+ * it and/or modify it under the terms of the GNU General Public License (GPL) as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or(at your option) any later version.
+
+ * Code that uses any portion of the code in the org.opensourcephysics package
+ * or any subpackage (subdirectory) of this package must must also be be released
+ * under the GNU GPL license.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2007  The Open Source Physics project
+ *                     http://www.opensourcephysics.org
+ */
@@ -6,7 +6,29 @@
  */
 
 package org.opensourcephysics.numerics;
-public interface ODEInterpolationSolver extends ODEAdaptiveSolver {}
+
+/**
+ * ODEInterpolationSolver is an adaptive solver that can evaluate the solution at any time within
+ * its last step (dense output), so that output can be sampled finely without shortening the steps.
+ */
+public interface ODEInterpolationSolver extends ODEAdaptiveSolver {
+  /**
+   * Gets the state at a time within the last step.
+   *
+   * @param dt    the time since the start of the last step, from 0 to getLastStepSize()
+   * @param state the array that receives the state; a new array is allocated if null
+   * @return the state
+   */
+  public double[] interpolate(double dt, double[] state);
+
+  /**
+   * Gets the size of the last step that was taken; zero if no step has been taken.
+   *
+   * @return the step size
+   */
+  public double getLastStepSize();
+
+}
 
 /*
  * Open Source Physics software is free software; you can redistribute
@@ -18,6 +18,11 @@ public class RK45MultiStep extends RK45 {
   private static int maxMessages = 3; // maximum number of error messages
   private double fixedStepSize = 0.1;
   protected int maxIterations = 200;
+  private ODE ode;
+  private double lastStepSize = 0;
+  private int numSegments = 0;                          // the number of RK4/5 steps in the last step
+  private DenseOutput[] segments = new DenseOutput[0];  // the RK4/5 steps of the last step
+  private double[] offsets = new double[0];             // the start of each RK4/5 step within the last step
 
   /**
    * Constructs the RK45MultiStep ODESolver for a system of ordinary  differential equations.
@@ -26,6 +31,7 @@ public class RK45MultiStep extends RK45 {
    */
   public RK45MultiStep(ODE _ode) {
     super(_ode);
+    ode = _ode;
   }
 
   /**
@@ -39,10 +45,44 @@ public class RK45MultiStep extends RK45 {
    */
   public double step() {
     error_code = NO_ERROR;
+    numSegments = 0;
     if(fixedStepSize>0) {
-      return fixedStepSize-plus();
+      lastStepSize = fixedStepSize-plus();
+    } else {
+      lastStepSize = fixedStepSize-minus();
     }
-    return fixedStepSize-minus();
+    return lastStepSize;
+  }
+
+  /**
+   * Gets the state at a time within the last step.
+   *
+   * The state is interpolated within the RK4/5 step that contains the time.
+   *
+   * @param dt    the time since the start of the last step
+   * @param state the array that receives the state; a new array is allocated if null
+   * @return the state
+   */
+  public double[] interpolate(double dt, double[] state) {
+    int j = numSegments-1;
+    while((j>0)&&((fixedStepSize>0) ? dt<offsets[j] : dt>offsets[j])) {
+      j--;
+    }
+    if(j==numSegments-1) { // the last RK4/5 step shares its end rate with the next step
+      return super.interpolate((j<0) ? dt : dt-offsets[j], state);
+    }
+    return segments[j].interpolate(ode, dt-offsets[j], state);
+  }
+
+  /**
+   * Gets the size of the last step that was taken.
+   *
+   * The size is the fixed step size less the remainder that was not reached.
+   *
+   * @return the step size
+   */
+  public double getLastStepSize() {
+    return lastStepSize;
   }
 
   /**
@@ -73,11 +113,11 @@ public class RK45MultiStep extends RK45 {
       if(remainder<super.getStepSize()) {      // temporarily reduce the step size so that we hit the exact dt value
         double tempStep = super.getStepSize(); // save the current optimum step size
         super.setStepSize(remainder);          // set the RK4/5 step size to the remainder
-        double delta = super.step();
+        double delta = innerStep(fixedStepSize-oldRemainder);
         remainder -= delta;
         super.setStepSize(tempStep);           // restore the original step size
       } else {
-        remainder -= super.step();             // do a rk45 step and set the remainder
+        remainder -= innerStep(fixedStepSize-oldRemainder); // do a rk45 step and set the remainder
       }
       // check to see if roundoff error prevents further calculation.
       if((error_code!=NO_ERROR)||(Math.abs(oldRemainder-remainder)<=Float.MIN_VALUE)||(tol*fixedStepSize/10.0>super.getStepSize())||(counter>maxIterations)) {
@@ -116,11 +156,11 @@ public class RK45MultiStep extends RK45 {
       if(remainder>super.getStepSize()) {
         double tempStep = super.getStepSize(); // save the current optimum step size
         super.setStepSize(remainder);          // set the step RK4/5 size to the remainder
-        double delta = super.step();
+        double delta = innerStep(fixedStepSize-oldRemainder);
         remainder -= delta;
         super.setStepSize(tempStep);           // restore the original step size
       } else {
-        remainder -= super.step();             // do a rk45 step and set the remainder
+        remainder -= innerStep(fixedStepSize-oldRemainder); // do a rk45 step and set the remainder
       }
       // check to see if roundoff error prevents further calculation.
       if((error_code!=NO_ERROR)||(Math.abs(oldRemainder-remainder)<=Float.MIN_VALUE)||(tol*fixedStepSize/10.0<super.getStepSize())||(counter>maxIterations)) {
@@ -142,6 +182,28 @@ public class RK45MultiStep extends RK45 {
     return remainder;
   }
 
+  /**
+   * Takes an RK4/5 step that starts at offset within the fixed step and keeps it for interpolation.
+   *
+   * @return the step size
+   */
+  private double innerStep(double offset) {
+    double delta = super.step();
+    if(numSegments==segments.length) {
+      DenseOutput[] temp = new DenseOutput[numSegments+1];
+      System.arraycopy(segments, 0, temp, 0, numSegments);
+      temp[numSegments] = new DenseOutput(dense_weights);
+      segments = temp;
+      double[] tempOffsets = new double[numSegments+1];
+      System.arraycopy(offsets, 0, tempOffsets, 0, numSegments);
+      offsets = tempOffsets;
+    }
+    segments[numSegments].copy(getDenseOutput());
+    offsets[numSegments] = offset;
+    numSegments++;
+    return delta;
+  }
+
   /**
    * Sets the number of error messages if ODE solver did not converge.
    * @param n int